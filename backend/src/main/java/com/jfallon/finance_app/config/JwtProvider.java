@@ -4,6 +4,7 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
@@ -16,6 +17,7 @@ public class JwtProvider {
         return Jwts.builder().issuedAt(new Date())
                 .expiration(new Date(new Date().getTime()+ 86400000))
                 .claim("email", auth.getName())
+                .claim("authorities", String.join(",", AuthorityUtils.authorityListToSet(auth.getAuthorities())))
                 .signWith(key)
                 .compact();
     }
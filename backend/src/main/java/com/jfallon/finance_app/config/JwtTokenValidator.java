@@ -1,5 +1,6 @@
 package com.jfallon.finance_app.config;
 
+import com.jfallon.finance_app.service.StreamTicketService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
@@ -19,9 +20,26 @@ import java.io.IOException;
 import java.util.List;
 
 public class JwtTokenValidator extends OncePerRequestFilter {
+    static final String STREAM_PATH = "/api/stream";
+
+    private final StreamTicketService streamTicketService;
+
+    public JwtTokenValidator(StreamTicketService streamTicketService) {
+        this.streamTicketService = streamTicketService;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String jwt = request.getHeader(JwtConstant.JWT_HEADER);
+        // EventSource can't set headers; the stream endpoint takes a one-time ticket (never the JWT) on the query string
+        if (jwt == null && STREAM_PATH.equals(request.getRequestURI()) && request.getParameter("ticket") != null) {
+            Authentication authentication = streamTicketService.redeem(request.getParameter("ticket"));
+            if (authentication == null) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
 
         if (jwt != null){
             jwt = jwt.substring(7);
@@ -0,0 +1,26 @@
+package com.jfallon.finance_app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "app.migrations.enabled", havingValue = "true", matchIfMissing = true)
+public class MigrationConfig {
+
+    @Bean(initMethod = "migrate")
+    SchemaMigrator schemaMigrator(DataSource dataSource,
+                                  @Value("${app.migrations.location:classpath:db/migration}") String location) {
+        return new SchemaMigrator(dataSource, location);
+    }
+
+    // JPA must not start until the schema it maps has been migrated
+    @Bean
+    static EntityManagerFactoryDependsOnPostProcessor schemaMigratorDependsOn() {
+        return new EntityManagerFactoryDependsOnPostProcessor("schemaMigrator");
+    }
+}
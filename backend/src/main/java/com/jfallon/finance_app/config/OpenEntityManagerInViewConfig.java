@@ -0,0 +1,25 @@
+package com.jfallon.finance_app.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Replaces Boot's open-in-view (spring.jpa.open-in-view=false) so the event stream can be left out: an open view
+// keeps the request's EntityManager, and any connection it checked out, until the SseEmitter completes, which for
+// /api/stream is up to stream.timeout-ms. Every other endpoint keeps lazy loading through serialization as before.
+@Configuration
+public class OpenEntityManagerInViewConfig implements WebMvcConfigurer {
+
+    @Bean
+    OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns(JwtTokenValidator.STREAM_PATH);
+    }
+}
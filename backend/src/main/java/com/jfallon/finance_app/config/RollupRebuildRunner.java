@@ -0,0 +1,38 @@
+package com.jfallon.finance_app.config;
+
+import com.jfallon.finance_app.service.MonthlyCategoryTotalService;
+import com.jfallon.finance_app.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Regenerates monthly_category_totals from the ledger when started with --rebuild-rollups[=<email>]
+@Component
+public class RollupRebuildRunner implements ApplicationRunner {
+    static final String OPTION = "rebuild-rollups";
+
+    @Autowired
+    private MonthlyCategoryTotalService monthlyCategoryTotalService;
+
+    @Autowired
+    private UserService userService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+
+        List<String> emails = args.getOptionValues(OPTION);
+        if (emails.isEmpty()) {
+            monthlyCategoryTotalService.rebuildAll();
+            return;
+        }
+        for (String email : emails) {
+            monthlyCategoryTotalService.rebuild(userService.getCurrentUser(email));
+        }
+    }
+}
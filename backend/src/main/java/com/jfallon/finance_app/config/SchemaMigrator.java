@@ -0,0 +1,147 @@
+package com.jfallon.finance_app.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Applies versioned SQL scripts (V<n>__<description>.sql) in order, each in its own transaction
+public class SchemaMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final long ADVISORY_LOCK_KEY = 0x5046_4d49_4752L; // serializes migrations across instances
+
+    private final DataSource dataSource;
+    private final String location;
+
+    public SchemaMigrator(DataSource dataSource, String location) {
+        this.dataSource = dataSource;
+        this.location = location;
+    }
+
+    public int migrate() {
+        List<Migration> migrations = loadMigrations();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + ADVISORY_LOCK_KEY + ")");
+            }
+            try {
+                createHistoryTable(connection);
+                Map<Integer, String> applied = loadApplied(connection);
+
+                int count = 0;
+                for (Migration migration : migrations) {
+                    String checksum = applied.get(migration.version());
+                    if (checksum == null) {
+                        apply(connection, migration);
+                        count++;
+                    } else if (!checksum.equals(migration.checksum())) {
+                        throw new IllegalStateException("Migration V" + migration.version()
+                                + " has changed since it was applied");
+                    }
+                }
+                logger.info("Schema is at V{} ({} migrations applied now)",
+                        migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version(), count);
+                return count;
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT pg_advisory_unlock(" + ADVISORY_LOCK_KEY + ")");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Schema migration failed", e);
+        }
+    }
+
+    private void createHistoryTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_migrations (" +
+                    "version integer PRIMARY KEY, " +
+                    "description varchar(255) NOT NULL, " +
+                    "checksum varchar(32) NOT NULL, " +
+                    "applied_at timestamp NOT NULL DEFAULT now())");
+        }
+    }
+
+    private Map<Integer, String> loadApplied(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        logger.info("Applying migration V{}: {}", migration.version(), migration.description());
+        connection.setAutoCommit(false);
+        try {
+            // The PostgreSQL driver splits multi-statement scripts itself, including dollar-quoted DO blocks
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(migration.sql());
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO schema_migrations (version, description, checksum) VALUES (?, ?, ?)")) {
+                insert.setInt(1, migration.version());
+                insert.setString(2, migration.description());
+                insert.setString(3, migration.checksum());
+                insert.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(location + "/*.sql");
+            for (Resource resource : resources) {
+                Matcher matcher = FILE_NAME.matcher(resource.getFilename());
+                if (!matcher.matches()) {
+                    logger.warn("Ignoring migration with unexpected name: {}", resource.getFilename());
+                    continue;
+                }
+                String sql = StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+                migrations.add(new Migration(
+                        Integer.parseInt(matcher.group(1)),
+                        matcher.group(2).replace('_', ' '),
+                        sql,
+                        DigestUtils.md5DigestAsHex(sql.getBytes(StandardCharsets.UTF_8))));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read migrations from " + location, e);
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        return migrations;
+    }
+
+    private record Migration(int version, String description, String sql, String checksum) {
+    }
+}
@@ -1,16 +1,24 @@
 package com.jfallon.finance_app.controller;
 
+import com.jfallon.finance_app.dto.Granularity;
+import com.jfallon.finance_app.dto.TransactionHistoryPage;
+import com.jfallon.finance_app.dto.TransactionHistoryQuery;
 import com.jfallon.finance_app.model.Transaction;
+import com.jfallon.finance_app.service.BalanceSnapshotService;
+import com.jfallon.finance_app.service.DashboardService;
+import com.jfallon.finance_app.service.DataVersionService;
 import com.jfallon.finance_app.service.TransactionService;
 import com.jfallon.finance_app.service.UserService;
+import com.jfallon.finance_app.service.UserSnapshotCache;
 import com.jfallon.finance_app.userauth.model.User;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
@@ -21,53 +29,136 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/balance")
 @RequiredArgsConstructor
 public class BalanceController {
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+    private static final int MAX_DAILY_SERIES_YEARS = 10;
+
     private final UserService userService;
     private final TransactionService transactionService;
+    private final DashboardService dashboardService;
+    private final UserSnapshotCache snapshotCache;
+    private final DataVersionService dataVersionService;
+    private final BalanceSnapshotService balanceSnapshotService;
 
     @GetMapping("")
-    public ResponseEntity<?> getBalance(Authentication auth) {
+    public ResponseEntity<?> getBalance(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication auth) {
         try {
             User user = userService.getCurrentUser(auth.getName());
-            BigDecimal currentBalance = transactionService.calculateCurrentBalance(user);
-            LocalDateTime lastUpdated = LocalDateTime.now();
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("currentBalance", currentBalance);
-            response.put("lastUpdated", lastUpdated);
-            response.put("total", currentBalance);
-
-            return ResponseEntity.ok(response);
+            return DataVersionService.conditional(ifNoneMatch, dataVersionService.tag(user), () -> dashboardService.balance(user));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Failed to fetch balance data"));
         }
     }
 
+    @GetMapping("/at")
+    public ResponseEntity<?> getBalanceAt(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+        if (date.isAfter(LocalDate.now())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "date must not be in the future"));
+        }
+        return ResponseEntity.ok(balanceSnapshotService.getBalanceAt(user, date));
+    }
+
+    @GetMapping("/history/series")
+    public ResponseEntity<?> getBalanceSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusYears(1);
+
+        Granularity periodGranularity;
+        try {
+            periodGranularity = Granularity.fromString(granularity);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from must not be after to"));
+        }
+        if (periodGranularity == Granularity.DAY && start.plusYears(MAX_DAILY_SERIES_YEARS).isBefore(end)) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "Daily series are limited to " + MAX_DAILY_SERIES_YEARS + " years, use granularity=week or month"));
+        }
+
+        // The default range ends today, so the tag changes with the date as well as the data
+        String etag = dataVersionService.tag(user, LocalDate.now());
+        return DataVersionService.conditional(ifNoneMatch, etag, () -> snapshotCache.get(user.getId(),
+                "balance-series:" + start + ":" + end + ":" + periodGranularity,
+                () -> balanceSnapshotService.getRunningBalance(user, start, end, periodGranularity)));
+    }
+
     @GetMapping("/transactions")
-    public ResponseEntity<?> getRecentTransactions(Authentication auth) {
+    public ResponseEntity<?> getRecentTransactions(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication auth) {
         User user = userService.getCurrentUser(auth.getName());
-        List<Transaction> transactions = transactionService.getRecentTransactions(user, 10);
+        return DataVersionService.conditional(ifNoneMatch, dataVersionService.tag(user),
+                () -> dashboardService.recentLedger(user));
+    }
+
+    @GetMapping("/transactions/history")
+    public ResponseEntity<?> getTransactionHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+
+        TransactionHistoryQuery query = new TransactionHistoryQuery();
+        query.setUser(user);
+        query.setType(type != null ? type.toUpperCase() : null);
+        query.setCategory(category);
+        query.setFrom(from != null ? from.atStartOfDay() : null);
+        query.setTo(to != null ? to.plusDays(1).atStartOfDay() : null);
 
-        List<Map<String, Object>> formattedTransactions = transactions.stream()
+        TransactionHistoryPage page;
+        try {
+            page = transactionService.getTransactionHistory(query, cursor, Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        List<Map<String, Object>> formattedTransactions = page.getTransactions().stream()
                 .map(transaction -> {
                     Map<String, Object> map = new HashMap<>();
                     map.put("id", transaction.getId());
                     map.put("timestamp", transaction.getTransactionDate());
                     map.put("type", transaction.getType());
+                    map.put("category", transaction.getCategory());
                     map.put("amount", transaction.getAmount());
                     map.put("description", transaction.getDescription());
                     return map;
                 })
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(formattedTransactions);
+        Map<String, Object> response = new HashMap<>();
+        response.put("transactions", formattedTransactions);
+        response.put("nextCursor", page.getNextCursor());
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/balance/history")
-    public ResponseEntity<?> getBalanceHistory(Authentication auth) {
+    public ResponseEntity<?> getBalanceHistory(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication auth) {
         User user = userService.getCurrentUser(auth.getName());
+        return DataVersionService.conditional(ifNoneMatch, dataVersionService.tag(user), () -> formatHistory(user));
+    }
+
+    private List<Map<String, Object>> formatHistory(User user) {
         List<Transaction> transactions = transactionService.getRecentTransactions(user, 30);
 
-        List<Map<String, Object>> history = transactions.stream()
+        return transactions.stream()
                 .map(transaction -> {
                     Map<String, Object> map = new HashMap<>();
                     map.put("date", transaction.getTransactionDate().format(DateTimeFormatter.ISO_DATE_TIME));
@@ -77,7 +168,5 @@ public class BalanceController {
                     return map;
                 })
                 .collect(Collectors.toList());
-
-        return ResponseEntity.ok(history);
     }
 }
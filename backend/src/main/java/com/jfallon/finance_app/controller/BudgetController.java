@@ -1,6 +1,10 @@
 package com.jfallon.finance_app.controller;
 
+import com.jfallon.finance_app.dto.BudgetAlert;
+import com.jfallon.finance_app.dto.BudgetRollover;
 import com.jfallon.finance_app.model.Budget;
+import com.jfallon.finance_app.service.BudgetAlertService;
+import com.jfallon.finance_app.service.BudgetCarryoverService;
 import com.jfallon.finance_app.service.BudgetService;
 import com.jfallon.finance_app.service.UserService;
 import com.jfallon.finance_app.userauth.model.User;
@@ -9,20 +13,32 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.time.Year;
 import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
 @RestController
 @RequestMapping("/api/budgets")
 public class BudgetController {
-
     @Autowired
     private BudgetService budgetService;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private BudgetAlertService budgetAlertService;
+
+    @Autowired
+    private BudgetCarryoverService budgetCarryoverService;
+
     @PostMapping
     public ResponseEntity<Budget> createBudget(@RequestBody Budget budget, Authentication auth) {
         User user = userService.getCurrentUser(auth.getName());
@@ -58,6 +74,94 @@ public class BudgetController {
         return ResponseEntity.ok(summary);
     }
 
+    // Envelope view: each budgeted category's carry-in from earlier months plus this month's budget and spend
+    @GetMapping("/rollover/{yearMonth}")
+    public ResponseEntity<?> getBudgetRollover(@PathVariable String yearMonth, Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+        YearMonth month;
+        try {
+            month = YearMonth.parse(yearMonth);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        List<BudgetRollover> categories = budgetCarryoverService.getRollover(user, month);
+        Map<String, Object> response = new HashMap<>();
+        response.put("month", month.toString());
+        response.put("categories", categories);
+        response.put("totalAvailable", categories.stream()
+                .map(BudgetRollover::getAvailable)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/alerts")
+    public ResponseEntity<List<BudgetAlert>> getBudgetAlerts(Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+        return ResponseEntity.ok(budgetAlertService.getRecentAlerts(user.getId()));
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<?> getBudgetSummaryRange(
+            @RequestParam String from,
+            @RequestParam String to,
+            Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+        try {
+            return ResponseEntity.ok(formatSummaries(
+                    budgetService.getBudgetSummaries(user, YearMonth.parse(from), YearMonth.parse(to))));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/summary/year/{year}")
+    public ResponseEntity<?> getBudgetSummaryYear(@PathVariable int year, Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+        Year budgetYear = Year.of(year);
+        return ResponseEntity.ok(formatSummaries(
+                budgetService.getBudgetSummaries(user, budgetYear.atMonth(1), budgetYear.atMonth(12))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> formatSummaries(Map<YearMonth, Map<String, Object>> summaries) {
+        List<Map<String, Object>> months = new ArrayList<>();
+        BigDecimal totalBudget = BigDecimal.ZERO;
+        BigDecimal totalSpent = BigDecimal.ZERO;
+
+        for (Map.Entry<YearMonth, Map<String, Object>> entry : new TreeMap<>(summaries).entrySet()) {
+            Map<String, BigDecimal> budgets = (Map<String, BigDecimal>) entry.getValue().get("budgets");
+            Map<String, BigDecimal> spent = (Map<String, BigDecimal>) entry.getValue().get("spent");
+            totalBudget = totalBudget.add(budgets.values().stream().filter(Objects::nonNull).reduce(BigDecimal.ZERO, BigDecimal::add));
+            totalSpent = totalSpent.add(spent.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add));
+
+            Map<String, Object> month = new HashMap<>(entry.getValue());
+            month.put("month", entry.getKey().toString());
+            months.add(month);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("months", months);
+        response.put("totalBudget", totalBudget);
+        response.put("totalSpent", totalSpent);
+        return response;
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createBudgets(@RequestBody List<Budget> budgets, Authentication auth) {
+        return EntryResponses.bulk(budgets, () -> budgetService.createBudgets(userService.getCurrentUser(auth.getName()), budgets));
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<?> updateBudgets(@RequestBody List<Budget> budgets, Authentication auth) {
+        return EntryResponses.bulk(budgets, () -> budgetService.updateBudgets(userService.getCurrentUser(auth.getName()), budgets));
+    }
+
+    @DeleteMapping("/bulk")
+    public ResponseEntity<?> deleteBudgets(@RequestBody List<Long> ids, Authentication auth) {
+        return EntryResponses.bulk(ids, () -> budgetService.deleteBudgets(userService.getCurrentUser(auth.getName()), ids));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Budget> updateBudget(
             @PathVariable Long id,
@@ -85,7 +189,7 @@ public class BudgetController {
             return ResponseEntity.badRequest().body("Not authorized to delete this budget");
         }
 
-        budgetService.deleteBudget(id);
+        budgetService.deleteBudget(budget);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.jfallon.finance_app.controller;
+
+import com.jfallon.finance_app.service.CategoryService;
+import com.jfallon.finance_app.service.UserService;
+import com.jfallon.finance_app.userauth.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/categories")
+@RequiredArgsConstructor
+public class CategoryController {
+    private final UserService userService;
+    private final CategoryService categoryService;
+
+    @GetMapping("")
+    public ResponseEntity<?> getCategories(Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+
+        List<Map<String, Object>> categories = categoryService.getCategories(user).stream()
+                .map(category -> {
+                    Map<String, Object> map = new HashMap<>();
+                    map.put("id", category.getId());
+                    map.put("name", category.getName());
+                    return map;
+                })
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(categories);
+    }
+}
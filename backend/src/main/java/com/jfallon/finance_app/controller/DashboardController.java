@@ -1,16 +1,20 @@
 // DashboardController.java
 package com.jfallon.finance_app.controller;
 
+import com.jfallon.finance_app.dto.Granularity;
 import com.jfallon.finance_app.model.Transaction;
 import com.jfallon.finance_app.service.*;
 import com.jfallon.finance_app.userauth.model.User;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,43 +24,70 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/dashboard")
 @RequiredArgsConstructor
 public class DashboardController {
-    private final IncomeService incomeService;
-    private final ExpenseService expenseService;
+
     private final PortfolioService portfolioService;
     private final UserService userService;
     private final TransactionService transactionService;
+    private final DashboardService dashboardService;
+    private final DataVersionService dataVersionService;
+
+    // Every dashboard section in one round trip; sections that fail or miss their deadline are listed under "unavailable"
+    @GetMapping("/summary")
+    public ResponseEntity<?> getSummary(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+        // Expense windows move with the date and quotes with the portfolio TTL, so both are part of the tag
+        String etag = dataVersionService.tag(user, LocalDate.now(), dashboardService.quoteWindow());
+        if (DataVersionService.matches(ifNoneMatch, etag)) {
+            return DataVersionService.notModified(etag);
+        }
+        Map<String, Object> summary = dashboardService.getSummary(user);
+        // A partial summary must not be revalidated into a 304 later, so it goes out untagged
+        if (!((Map<?, ?>) summary.get("unavailable")).isEmpty()) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(summary);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(DataVersionService.REVALIDATE).body(summary);
+    }
 
     @GetMapping("/income")
-    public ResponseEntity<?> getIncome(Authentication auth) {
+    public ResponseEntity<?> getIncome(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication auth) {
         User user = userService.getCurrentUser(auth.getName());
-
-        BigDecimal monthlyIncome = incomeService.getIncomesByUser(user).stream()
-                .filter(income -> income.getFrequency().equals("MONTHLY"))
-                .map(income -> income.getAmount())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        return ResponseEntity.ok(Map.of("monthly", monthlyIncome));
+        return DataVersionService.conditional(ifNoneMatch, dataVersionService.tag(user), () -> dashboardService.income(user));
     }
 
     @GetMapping("/expenses")
-    public ResponseEntity<?> getExpenses(Authentication auth) {
+    public ResponseEntity<?> getExpenses(
+            @RequestParam(defaultValue = "6") int months,
+            @RequestParam(defaultValue = "month") String granularity,
+            @RequestParam(required = false) Integer breakdownMonths,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication auth) {
         User user = userService.getCurrentUser(auth.getName());
-        Map<String, Object> response = new HashMap<>();
-
-        // Get monthly expenses total
-        BigDecimal monthlyTotal = expenseService.calculateMonthlyExpenses(user);
-
-        // Get expense breakdown by category
-        List<Map<String, Object>> breakdown = expenseService.getExpenseBreakdown(user);
 
-        // Get spending trend (last 6 months)
-        List<Map<String, Object>> trend = transactionService.getSpendingTrend(user);
+        Granularity trendGranularity;
+        try {
+            trendGranularity = Granularity.fromString(granularity);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        // Checked before the snapshot lookup so out-of-range values neither fail in minusMonths nor get cached
+        if (months < 1 || months > TransactionService.MAX_TREND_MONTHS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "months must be between 1 and " + TransactionService.MAX_TREND_MONTHS));
+        }
+        if (breakdownMonths != null && (breakdownMonths < 0 || breakdownMonths > TransactionService.MAX_TREND_MONTHS)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "breakdownMonths must be between 0 and " + TransactionService.MAX_TREND_MONTHS));
+        }
 
-        response.put("monthly", monthlyTotal);
-        response.put("breakdown", breakdown);
-        response.put("trend", trend);
+        // Get expense breakdown by category (whole history unless a window is requested)
+        LocalDateTime breakdownFrom = breakdownMonths != null
+                ? LocalDate.now().minusMonths(breakdownMonths).atStartOfDay()
+                : null;
 
-        return ResponseEntity.ok(response);
+        return DataVersionService.conditional(ifNoneMatch, dataVersionService.tag(user, LocalDate.now()),
+                () -> dashboardService.expenses(user, months, trendGranularity, breakdownFrom));
     }
 
     @GetMapping("/portfolio")
@@ -85,27 +116,11 @@ public class DashboardController {
     }
 
     @GetMapping("/transactions")
-    public ResponseEntity<?> getTransactions(Authentication auth) {
+    public ResponseEntity<?> getTransactions(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication auth) {
         User user = userService.getCurrentUser(auth.getName());
-        List<Transaction> recentTransactions = transactionService.getRecentTransactions(user, 5);
-
-        List<Map<String, Object>> formattedTransactions = recentTransactions.stream()
-                .map(transaction -> {
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("id", transaction.getId());
-                    map.put("type", transaction.getType().toLowerCase());
-                    map.put("description", transaction.getDescription());
-                    map.put("amount", transaction.getAmount());
-                    map.put("date", transaction.getTransactionDate().format(
-                            DateTimeFormatter.ofPattern("MMM dd, yyyy")
-                    ));
-                    return map;
-                })
-                .collect(Collectors.toList());
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("recent", formattedTransactions);
-        return ResponseEntity.ok(response);
+        return DataVersionService.conditional(ifNoneMatch, dataVersionService.tag(user), () -> dashboardService.transactions(user));
     }
 
     @GetMapping("/transactions/recent")  // Changed to match frontend endpoint
@@ -0,0 +1,59 @@
+package com.jfallon.finance_app.controller;
+
+import com.jfallon.finance_app.dto.BulkItemResult;
+import com.jfallon.finance_app.dto.EntrySearchQuery;
+import com.jfallon.finance_app.dto.EntrySearchRequest;
+import com.jfallon.finance_app.userauth.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Response shaping shared by the expense, income and budget endpoints
+final class EntryResponses {
+    static final int MAX_PAGE_SIZE = 200;
+    static final int MAX_BULK_ITEMS = 1000;
+
+    interface Search<T> {
+        Page<T> search(EntrySearchQuery query, String sort, int page, int size);
+    }
+
+    private EntryResponses() {
+    }
+
+    // Clamps the paging, runs the search and answers with one page; an unknown sort is a bad request
+    static <T> ResponseEntity<?> search(EntrySearchRequest request, User user, Search<T> search) {
+        Page<T> result;
+        try {
+            result = search.search(request.toQuery(user), request.getSort(), Math.max(0, request.getPage()),
+                    Math.max(1, Math.min(request.getSize(), MAX_PAGE_SIZE)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", result.getContent());
+        response.put("page", result.getNumber());
+        response.put("size", result.getSize());
+        response.put("totalElements", result.getTotalElements());
+        response.put("totalPages", result.getTotalPages());
+        return ResponseEntity.ok(response);
+    }
+
+    // Rejects oversized requests before the user is even loaded; otherwise runs the operation and summarizes it
+    static ResponseEntity<?> bulk(List<?> items, Supplier<List<BulkItemResult>> operation) {
+        if (items.size() > MAX_BULK_ITEMS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_BULK_ITEMS + " items per request"));
+        }
+        List<BulkItemResult> results = operation.get();
+        long failed = results.stream().filter(result -> "error".equals(result.getStatus())).count();
+        Map<String, Object> response = new HashMap<>();
+        response.put("results", results);
+        response.put("succeeded", results.size() - failed);
+        response.put("failed", failed);
+        return ResponseEntity.ok(response);
+    }
+}
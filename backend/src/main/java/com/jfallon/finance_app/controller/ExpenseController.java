@@ -1,5 +1,6 @@
 package com.jfallon.finance_app.controller;
 
+import com.jfallon.finance_app.dto.EntrySearchRequest;
 import com.jfallon.finance_app.model.Expense;
 import com.jfallon.finance_app.service.ExpenseService;
 import com.jfallon.finance_app.service.UserService;
@@ -14,7 +15,6 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/expenses")
 public class ExpenseController {
-
     @Autowired
     private ExpenseService expenseService;
 
@@ -36,6 +36,27 @@ public class ExpenseController {
         return ResponseEntity.ok(expenses);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<?> searchExpenses(EntrySearchRequest request, Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+        return EntryResponses.search(request, user, expenseService::searchExpenses);
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createExpenses(@RequestBody List<Expense> expenses, Authentication auth) {
+        return EntryResponses.bulk(expenses, () -> expenseService.createExpenses(userService.getCurrentUser(auth.getName()), expenses));
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<?> updateExpenses(@RequestBody List<Expense> expenses, Authentication auth) {
+        return EntryResponses.bulk(expenses, () -> expenseService.updateExpenses(userService.getCurrentUser(auth.getName()), expenses));
+    }
+
+    @DeleteMapping("/bulk")
+    public ResponseEntity<?> deleteExpenses(@RequestBody List<Long> ids, Authentication auth) {
+        return EntryResponses.bulk(ids, () -> expenseService.deleteExpenses(userService.getCurrentUser(auth.getName()), ids));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Expense> updateExpense(@PathVariable Long id, @RequestBody Expense expense, Authentication auth){
         User user = userService.getCurrentUser(auth.getName());
@@ -0,0 +1,49 @@
+package com.jfallon.finance_app.controller;
+
+import com.jfallon.finance_app.dto.ExportFormat;
+import com.jfallon.finance_app.service.TransactionExportService;
+import com.jfallon.finance_app.service.UserService;
+import com.jfallon.finance_app.userauth.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private UserService userService;
+
+    @GetMapping("/transactions")
+    public ResponseEntity<?> exportTransactions(
+            @RequestParam(defaultValue = "csv") String format,
+            Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromString(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        StreamingResponseBody body = output -> transactionExportService.export(user, exportFormat, output);
+        String filename = "transactions-" + LocalDate.now() + "." + exportFormat.getExtension();
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,56 @@
+package com.jfallon.finance_app.controller;
+
+import com.jfallon.finance_app.dto.ForecastMonth;
+import com.jfallon.finance_app.service.BalanceService;
+import com.jfallon.finance_app.service.ForecastService;
+import com.jfallon.finance_app.service.UserService;
+import com.jfallon.finance_app.userauth.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/forecast")
+@RequiredArgsConstructor
+public class ForecastController {
+    private final UserService userService;
+    private final ForecastService forecastService;
+    private final BalanceService balanceService;
+
+    @GetMapping("")
+    public ResponseEntity<?> getForecast(@RequestParam(defaultValue = "12") int months, Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+
+        List<ForecastMonth> forecast;
+        try {
+            forecast = forecastService.getForecast(user, months);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        BigDecimal startingBalance = balanceService.getOrCreateBalance(user).getCurrentBalance();
+        List<Map<String, Object>> formattedMonths = new ArrayList<>();
+        for (ForecastMonth month : forecast) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("month", month.getMonth());
+            map.put("income", month.getIncome());
+            map.put("expenses", month.getExpenses());
+            map.put("net", month.getNet());
+            map.put("expensesByCategory", month.getExpensesByCategory());
+            map.put("projectedBalance", startingBalance.add(month.getCumulativeNet()));
+            formattedMonths.add(map);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("startingBalance", startingBalance);
+        response.put("months", formattedMonths);
+        return ResponseEntity.ok(response);
+    }
+}
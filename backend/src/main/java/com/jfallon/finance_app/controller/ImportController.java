@@ -0,0 +1,44 @@
+package com.jfallon.finance_app.controller;
+
+import com.jfallon.finance_app.dto.ImportResult;
+import com.jfallon.finance_app.dto.StatementFormat;
+import com.jfallon.finance_app.service.StatementImportService;
+import com.jfallon.finance_app.service.UserService;
+import com.jfallon.finance_app.userauth.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    @Autowired
+    private StatementImportService statementImportService;
+
+    @Autowired
+    private UserService userService;
+
+    @PostMapping("/statement")
+    public ResponseEntity<?> importStatement(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format,
+            Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+        try (InputStream input = file.getInputStream()) {
+            StatementFormat statementFormat = StatementFormat.resolve(format, file.getOriginalFilename());
+            ImportResult result = statementImportService.importStatement(user, input, statementFormat);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to read statement"));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.jfallon.finance_app.controller;
 
+import com.jfallon.finance_app.dto.EntrySearchRequest;
 import com.jfallon.finance_app.model.Income;
 import com.jfallon.finance_app.service.IncomeService;
 import com.jfallon.finance_app.service.UserService;
@@ -14,7 +15,6 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/incomes")
 public class IncomeController {
-
     @Autowired
     private IncomeService incomeService;
 
@@ -36,6 +36,27 @@ public class IncomeController {
         return ResponseEntity.ok(incomes);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<?> searchIncomes(EntrySearchRequest request, Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+        return EntryResponses.search(request, user, incomeService::searchIncomes);
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createIncomes(@RequestBody List<Income> incomes, Authentication auth) {
+        return EntryResponses.bulk(incomes, () -> incomeService.createIncomes(userService.getCurrentUser(auth.getName()), incomes));
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<?> updateIncomes(@RequestBody List<Income> incomes, Authentication auth) {
+        return EntryResponses.bulk(incomes, () -> incomeService.updateIncomes(userService.getCurrentUser(auth.getName()), incomes));
+    }
+
+    @DeleteMapping("/bulk")
+    public ResponseEntity<?> deleteIncomes(@RequestBody List<Long> ids, Authentication auth) {
+        return EntryResponses.bulk(ids, () -> incomeService.deleteIncomes(userService.getCurrentUser(auth.getName()), ids));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Income> updateIncome(@PathVariable Long id, @RequestBody Income income, Authentication auth){
         User user = userService.getCurrentUser(auth.getName());
@@ -46,7 +67,7 @@ public class IncomeController {
         }
         income.setId(id);
         income.setUser(user);
-        Income updatedIncome = incomeService.saveIncome(income);
+        Income updatedIncome = incomeService.updateIncome(id, income);
         return ResponseEntity.ok(updatedIncome);
     }
 
@@ -0,0 +1,28 @@
+package com.jfallon.finance_app.controller;
+
+import com.jfallon.finance_app.service.QuoteCache;
+import com.jfallon.finance_app.service.QuoteRateLimiter;
+import com.jfallon.finance_app.service.UserSnapshotCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+    private final UserSnapshotCache snapshotCache;
+    private final QuoteCache quoteCache;
+    private final QuoteRateLimiter quoteRateLimiter;
+
+    @GetMapping("/caches")
+    public ResponseEntity<?> getCacheMetrics() {
+        return ResponseEntity.ok(Map.of(
+                "userSnapshots", snapshotCache.metrics(),
+                "quotes", quoteCache.metrics(),
+                "alphavantage", quoteRateLimiter.metrics()
+        ));
+    }
+}
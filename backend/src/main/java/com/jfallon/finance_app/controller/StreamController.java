@@ -0,0 +1,40 @@
+package com.jfallon.finance_app.controller;
+
+import com.jfallon.finance_app.service.LiveUpdateService;
+import com.jfallon.finance_app.service.StreamTicketService;
+import com.jfallon.finance_app.service.UserService;
+import com.jfallon.finance_app.userauth.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stream")
+@RequiredArgsConstructor
+public class StreamController {
+    private final UserService userService;
+    private final LiveUpdateService liveUpdateService;
+    private final StreamTicketService streamTicketService;
+
+    // A one-time ticket for opening the stream; every connection, reconnects included, needs a fresh one
+    @PostMapping("/ticket")
+    public ResponseEntity<?> ticket(Authentication auth) {
+        return ResponseEntity.ok(Map.of(
+                "ticket", streamTicketService.issue(auth),
+                "expiresIn", streamTicketService.getTtlSeconds()));
+    }
+
+    // EventSource can't send headers, so this endpoint authenticates with ?ticket= (see JwtTokenValidator).
+    // Events: "ledger" (balance, recent transactions and the changed buckets), "data" (a non-ledger change kind),
+    // "budget" (a threshold alert); a comment heartbeat keeps the connection open.
+    @GetMapping(value = "", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication auth) {
+        User user = userService.getCurrentUser(auth.getName());
+        return liveUpdateService.subscribe(user);
+    }
+}
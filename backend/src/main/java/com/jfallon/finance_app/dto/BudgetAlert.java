@@ -0,0 +1,19 @@
+package com.jfallon.finance_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BudgetAlert {
+    private Long userId;
+    private String month;
+    private String category;
+    private int thresholdPercent; // 80 or 100
+    private BigDecimal budget;
+    private BigDecimal spent;
+    private LocalDateTime triggeredAt;
+}
@@ -0,0 +1,15 @@
+package com.jfallon.finance_app.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// One budgeted category in a month with what it brought in from earlier months
+@Data
+public class BudgetRollover {
+    private String category;
+    private BigDecimal carriedIn = BigDecimal.ZERO;
+    private BigDecimal budget = BigDecimal.ZERO;
+    private BigDecimal spent = BigDecimal.ZERO;
+    private BigDecimal available = BigDecimal.ZERO; // carriedIn + budget - spent, i.e. what the next month carries in
+}
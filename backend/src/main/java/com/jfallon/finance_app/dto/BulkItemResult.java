@@ -0,0 +1,21 @@
+package com.jfallon.finance_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkItemResult {
+    private int index;      // position in the request array
+    private Long id;
+    private String status;  // "created", "updated", "deleted" or "error"
+    private String error;
+
+    public static BulkItemResult ok(int index, Long id, String status) {
+        return new BulkItemResult(index, id, status, null);
+    }
+
+    public static BulkItemResult error(int index, Long id, String error) {
+        return new BulkItemResult(index, id, "error", error);
+    }
+}
@@ -0,0 +1,21 @@
+package com.jfallon.finance_app.dto;
+
+import com.jfallon.finance_app.userauth.model.User;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+// Filters shared by the expense and income search; categories match Expense.category or Income.type
+@Data
+public class EntrySearchQuery {
+    private User user;
+    private LocalDateTime from; // inclusive, on startDate
+    private LocalDateTime to; // exclusive, on startDate
+    private Set<String> categories;
+    private Set<Integer> categoryIds; // resolved from categories for Expense, which stores only the dictionary id
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private String frequency;
+}
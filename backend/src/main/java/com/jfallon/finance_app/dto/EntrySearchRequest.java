@@ -0,0 +1,37 @@
+package com.jfallon.finance_app.dto;
+
+import com.jfallon.finance_app.userauth.model.User;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+
+// Query parameters of the expense and income search endpoints, bound by name; dates are whole days
+@Data
+public class EntrySearchRequest {
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+    private Set<String> category;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private String frequency;
+    private String sort;
+    private int page = 0;
+    private int size = 50;
+
+    public EntrySearchQuery toQuery(User user) {
+        EntrySearchQuery query = new EntrySearchQuery();
+        query.setUser(user);
+        query.setFrom(from != null ? from.atStartOfDay() : null);
+        query.setTo(to != null ? to.plusDays(1).atStartOfDay() : null);
+        query.setCategories(category);
+        query.setMinAmount(minAmount);
+        query.setMaxAmount(maxAmount);
+        query.setFrequency(frequency != null ? frequency.toUpperCase() : null);
+        return query;
+    }
+}
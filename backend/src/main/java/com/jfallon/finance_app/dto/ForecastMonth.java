@@ -0,0 +1,17 @@
+package com.jfallon.finance_app.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+public class ForecastMonth {
+    private String month;
+    private BigDecimal income = BigDecimal.ZERO;
+    private BigDecimal expenses = BigDecimal.ZERO;
+    private BigDecimal net = BigDecimal.ZERO;
+    private BigDecimal cumulativeNet = BigDecimal.ZERO;
+    private Map<String, BigDecimal> expensesByCategory = new HashMap<>();
+}
@@ -0,0 +1,37 @@
+package com.jfallon.finance_app.dto;
+
+public enum Frequency {
+    ONE_TIME(0, 0),
+    WEEKLY(7, 0),
+    BIWEEKLY(14, 0),
+    MONTHLY(0, 1),
+    YEARLY(0, 12);
+
+    private final int periodDays;   // fixed-length schedules
+    private final int periodMonths; // calendar schedules, clamped to the last day of short months
+
+    Frequency(int periodDays, int periodMonths) {
+        this.periodDays = periodDays;
+        this.periodMonths = periodMonths;
+    }
+
+    public int getPeriodDays() {
+        return periodDays;
+    }
+
+    public int getPeriodMonths() {
+        return periodMonths;
+    }
+
+    // Unknown or missing values are treated as a single occurrence rather than failing a whole forecast
+    public static Frequency fromString(String value) {
+        if (value == null) {
+            return ONE_TIME;
+        }
+        try {
+            return Frequency.valueOf(value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return ONE_TIME;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.jfallon.finance_app.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+
+public enum Granularity {
+    DAY("day", DateTimeFormatter.ofPattern("MMM dd")),
+    WEEK("week", DateTimeFormatter.ofPattern("'Week of' MMM dd")),
+    MONTH("month", DateTimeFormatter.ofPattern("MMM yyyy"));
+
+    private final String sqlUnit; // unit name accepted by PostgreSQL date_trunc
+    private final DateTimeFormatter labelFormat;
+
+    Granularity(String sqlUnit, DateTimeFormatter labelFormat) {
+        this.sqlUnit = sqlUnit;
+        this.labelFormat = labelFormat;
+    }
+
+    public String getSqlUnit() {
+        return sqlUnit;
+    }
+
+    public String label(LocalDate periodStart) {
+        return periodStart.format(labelFormat);
+    }
+
+    // Aligns a date to the start of its period, matching date_trunc (weeks start on Monday)
+    public LocalDate truncate(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate next(LocalDate periodStart) {
+        return switch (this) {
+            case DAY -> periodStart.plusDays(1);
+            case WEEK -> periodStart.plusWeeks(1);
+            case MONTH -> periodStart.plusMonths(1);
+        };
+    }
+
+    public static Granularity fromString(String value) {
+        try {
+            return Granularity.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported granularity: " + value);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.jfallon.finance_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ReconciliationReport {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long checked;
+    private long drifted;
+    private long repaired;
+    private long repairFailed;
+    private List<Drift> drifts = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    public static class Drift {
+        private Long userId;
+        private BigDecimal materialized;
+        private BigDecimal ledger;
+    }
+}
@@ -0,0 +1,24 @@
+package com.jfallon.finance_app.dto;
+
+public enum StatementFormat {
+    CSV,
+    OFX;
+
+    public static StatementFormat resolve(String format, String filename) {
+        if (format != null && !format.isBlank()) {
+            try {
+                return StatementFormat.valueOf(format.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported statement format: " + format);
+            }
+        }
+        String name = filename == null ? "" : filename.toLowerCase();
+        if (name.endsWith(".ofx") || name.endsWith(".qfx")) {
+            return OFX;
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        throw new IllegalArgumentException("Cannot infer statement format from file name: " + filename);
+    }
+}
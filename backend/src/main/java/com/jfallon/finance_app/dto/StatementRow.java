@@ -0,0 +1,24 @@
+package com.jfallon.finance_app.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class StatementRow {
+    private long lineNumber;
+    private LocalDateTime date;
+    private BigDecimal amount; // negative for money going out
+    private String type; // "EXPENSE" or "INCOME", derived from the sign when the statement doesn't say
+    private String category;
+    private String description;
+    private String error; // set instead of the fields above when the row could not be parsed
+
+    public static StatementRow failed(long lineNumber, String error) {
+        StatementRow row = new StatementRow();
+        row.setLineNumber(lineNumber);
+        row.setError(error);
+        return row;
+    }
+}
@@ -0,0 +1,14 @@
+package com.jfallon.finance_app.dto;
+
+import com.jfallon.finance_app.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TransactionHistoryPage {
+    private List<Transaction> transactions;
+    private String nextCursor; // null when there are no more rows
+}
@@ -0,0 +1,18 @@
+package com.jfallon.finance_app.dto;
+
+import com.jfallon.finance_app.userauth.model.User;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class TransactionHistoryQuery {
+    private User user;
+    private String type;
+    private String category;
+    private Integer categoryId; // resolved from category before the query runs; null unless it names an expense category
+    private LocalDateTime from; // inclusive
+    private LocalDateTime to; // exclusive
+    private LocalDateTime cursorDate;
+    private Long cursorId;
+}
@@ -0,0 +1,6 @@
+package com.jfallon.finance_app.event;
+
+import com.jfallon.finance_app.dto.BudgetAlert;
+
+public record BudgetAlertEvent(BudgetAlert alert) {
+}
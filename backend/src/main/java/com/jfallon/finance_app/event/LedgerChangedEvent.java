@@ -0,0 +1,21 @@
+package com.jfallon.finance_app.event;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Published for every ledger write with the (month, category, type) buckets it moved and by how much
+public record LedgerChangedEvent(Long userId, List<Change> changes) {
+
+    public Set<YearMonth> months(String type) {
+        return changes.stream()
+                .filter(change -> change.type().equals(type))
+                .map(Change::month)
+                .collect(Collectors.toSet());
+    }
+
+    public record Change(YearMonth month, String category, String type, BigDecimal amount) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.jfallon.finance_app.event;
+
+// Published for writes that change what a user sees without (only) moving the ledger, e.g. an income's frequency,
+// a portfolio holding or a manually set balance. Ledger writes publish LedgerChangedEvent instead.
+public record UserDataChangedEvent(Long userId, Kind kind) {
+
+    public enum Kind {
+        EXPENSE,
+        INCOME,
+        PORTFOLIO,
+        BALANCE
+    }
+}
@@ -3,6 +3,7 @@ package com.jfallon.finance_app.model;
 import com.jfallon.finance_app.userauth.model.User;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Formula;
 
 import java.math.BigDecimal;
 import java.time.YearMonth;
@@ -12,13 +13,19 @@ import java.time.YearMonth;
 @Table(name = "budgets")
 public class Budget {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "budgets_seq")
+    @SequenceGenerator(name = "budgets_seq", sequenceName = "budgets_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    @Column(name = "category_id")
+    private Integer categoryId;
+
+    // Read from the category dictionary; writes go through categoryId (see CategoryService.assign)
+    @Formula("(SELECT c.name FROM categories c WHERE c.id = category_id)")
     private String category;
 
     private BigDecimal amount;
@@ -0,0 +1,34 @@
+package com.jfallon.finance_app.model;
+
+import com.jfallon.finance_app.userauth.model.User;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Data
+@Entity
+@Table(name = "budget_carryovers", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_budget_carryovers", columnNames = {"user_id", "category_id", "month_start"})
+})
+public class BudgetCarryover {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "category_id", nullable = false)
+    private Integer categoryId;
+
+    @Convert(converter = YearMonthDateConverter.class)
+    @Column(name = "month_start", nullable = false)
+    private YearMonth month;
+
+    // Unspent (positive) or overspent (negative) budget from every earlier month of the chain
+    @Column(name = "carried_in", nullable = false)
+    private BigDecimal carriedIn;
+}
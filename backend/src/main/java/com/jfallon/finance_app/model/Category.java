@@ -0,0 +1,22 @@
+package com.jfallon.finance_app.model;
+
+import com.jfallon.finance_app.userauth.model.User;
+import jakarta.persistence.*;
+import lombok.Data;
+
+// One row per distinct category a user has entered; Expense, Budget and Transaction reference it by id
+@Data
+@Entity
+@Table(name = "categories")
+public class Category {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private String name;
+}
@@ -3,6 +3,7 @@ package com.jfallon.finance_app.model;
 import com.jfallon.finance_app.userauth.model.User;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Formula;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -20,7 +21,11 @@ public class Expense {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @Column(nullable = false)
+    @Column(name = "category_id")
+    private Integer categoryId;
+
+    // Read from the category dictionary; writes go through categoryId (see CategoryService.assign)
+    @Formula("(SELECT c.name FROM categories c WHERE c.id = category_id)")
     private String category;
 
     @Column(nullable = false)
@@ -0,0 +1,43 @@
+package com.jfallon.finance_app.model;
+
+import com.jfallon.finance_app.userauth.model.User;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+@Data
+@Entity
+@Table(name = "fired_budget_alerts", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_fired_budget_alerts", columnNames = {"user_id", "month_start", "category", "threshold_percent"})
+})
+public class FiredBudgetAlert {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Convert(converter = YearMonthDateConverter.class)
+    @Column(name = "month_start", nullable = false)
+    private YearMonth month;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(name = "threshold_percent", nullable = false)
+    private int thresholdPercent;
+
+    @Column(nullable = false)
+    private BigDecimal budget;
+
+    @Column(nullable = false)
+    private BigDecimal spent;
+
+    @Column(name = "triggered_at", nullable = false)
+    private LocalDateTime triggeredAt;
+}
@@ -6,6 +6,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @Entity
@@ -28,4 +29,10 @@ public class Income {
 
     @Column(nullable = false)
     private String frequency;
+
+    @Column(nullable = true)
+    private LocalDateTime startDate;
+
+    @Column(nullable = true)
+    private LocalDateTime endDate;
 }
@@ -0,0 +1,39 @@
+package com.jfallon.finance_app.model;
+
+import com.jfallon.finance_app.userauth.model.User;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Data
+@Entity
+@Table(name = "monthly_category_totals", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_monthly_category_totals", columnNames = {"user_id", "month_start", "category", "type"})
+})
+public class MonthlyCategoryTotal {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Convert(converter = YearMonthDateConverter.class)
+    @Column(name = "month_start", nullable = false)
+    private YearMonth month;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(nullable = false)
+    private String type; // "EXPENSE", "INCOME", "TRANSFER"
+
+    @Column(nullable = false)
+    private BigDecimal total;
+
+    @Column(name = "entry_count", nullable = false)
+    private long entryCount;
+}
@@ -3,15 +3,19 @@ package com.jfallon.finance_app.model;
 import com.jfallon.finance_app.userauth.model.User;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Formula;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_user_date_id", columnList = "user_id, transaction_date, id")
+})
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 500)
     private Long id;
 
     @ManyToOne
@@ -21,7 +25,7 @@ public class Transaction {
     @Column(nullable = false)
     private String type; // "EXPENSE", "INCOME", "TRANSFER"
 
-    @Column(nullable = false)
+    // Null for rows mirrored from an expense or income; see getDescription()
     private String description;
 
     @Column(nullable = false)
@@ -30,6 +34,15 @@ public class Transaction {
     @Column(name = "transaction_date", nullable = false)
     private LocalDateTime transactionDate;
 
+    @Column(name = "category_id")
+    private Integer categoryId;
+
+    // Free text for rows outside the expense dictionary, i.e. income types; null when categoryId is set
+    @Column(name = "category")
+    private String categoryLabel;
+
+    // The dictionary name for expense rows and the stored text otherwise; writes go through CategoryService.assign
+    @Formula("COALESCE((SELECT c.name FROM categories c WHERE c.id = category_id), category)")
     private String category;
 
     // Optional reference to related entities
@@ -38,4 +51,17 @@ public class Transaction {
 
     @Column(name = "reference_id")
     private Long referenceId;
+
+    public String getDescription() {
+        if (description != null) {
+            return description;
+        }
+        if ("EXPENSE".equals(referenceType)) {
+            return "Expense: " + category;
+        }
+        if ("INCOME".equals(referenceType)) {
+            return "Income: " + category;
+        }
+        return null;
+    }
 }
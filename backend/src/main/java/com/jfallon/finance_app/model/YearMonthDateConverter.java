@@ -0,0 +1,21 @@
+package com.jfallon.finance_app.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+// Stores a YearMonth as the first day of the month so it can be range-queried and indexed
+@Converter
+public class YearMonthDateConverter implements AttributeConverter<YearMonth, LocalDate> {
+    @Override
+    public LocalDate convertToDatabaseColumn(YearMonth month) {
+        return month == null ? null : month.atDay(1);
+    }
+
+    @Override
+    public YearMonth convertToEntityAttribute(LocalDate date) {
+        return date == null ? null : YearMonth.from(date);
+    }
+}
@@ -2,11 +2,46 @@ package com.jfallon.finance_app.repository;
 
 import com.jfallon.finance_app.model.Balance;
 import com.jfallon.finance_app.userauth.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BalanceRepository extends JpaRepository<Balance, Long> {
     Optional<Balance> findByUser(User user);
+
+    List<Balance> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT b.version FROM Balance b WHERE b.user.id = :userId")
+    Optional<Long> findVersionByUserId(Long userId);
+
+    // For writes that change what a user sees without moving the balance itself
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE balances SET version = COALESCE(version, 0) + 1 WHERE user_id = :userId", nativeQuery = true)
+    int incrementVersion(Long userId);
+
+    // Single-statement delta: the row lock serializes concurrent writers for one user and no update can be lost
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE balances SET current_balance = current_balance + :delta, last_updated = :now, " +
+            "version = COALESCE(version, 0) + 1 WHERE user_id = :userId", nativeQuery = true)
+    int addToBalance(Long userId, BigDecimal delta, LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE balances SET current_balance = :value, last_updated = :now, " +
+            "version = COALESCE(version, 0) + 1 WHERE user_id = :userId", nativeQuery = true)
+    int overwriteBalance(Long userId, BigDecimal value, LocalDateTime now);
+
+    // Seeds the row from the ledger; concurrent first writers wait on the unique index and the loser inserts nothing
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO balances (user_id, current_balance, last_updated, version) " +
+            "SELECT :userId, COALESCE(SUM(CASE WHEN t.type = 'EXPENSE' THEN -t.amount ELSE t.amount END), 0), :now, 0 " +
+            "FROM transactions t WHERE t.user_id = :userId " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int insertFromLedgerIfAbsent(Long userId, LocalDateTime now);
 }
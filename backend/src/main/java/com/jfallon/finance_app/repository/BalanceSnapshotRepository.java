@@ -0,0 +1,30 @@
+package com.jfallon.finance_app.repository;
+
+import com.jfallon.finance_app.model.BalanceSnapshot;
+import com.jfallon.finance_app.userauth.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    Optional<BalanceSnapshot> findFirstByUserOrderBySnapshotDateDesc(User user);
+
+    Optional<BalanceSnapshot> findFirstByUserAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(User user, LocalDate date);
+
+    List<BalanceSnapshot> findByUserOrderBySnapshotDateAsc(User user);
+
+    @Modifying
+    @Query(value = "DELETE FROM balance_snapshots WHERE user_id = :userId AND snapshot_date > :date", nativeQuery = true)
+    int deleteByUserIdAndSnapshotDateAfter(Long userId, LocalDate date);
+
+    // Serializes snapshot builds with back-dated invalidations of the same user; two-key form like the carryover lock
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:namespace, CAST(:userId % 2147483648 AS integer))) l",
+            nativeQuery = true)
+    Integer lockForUser(int namespace, Long userId);
+}
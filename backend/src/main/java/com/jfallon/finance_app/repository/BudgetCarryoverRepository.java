@@ -0,0 +1,48 @@
+package com.jfallon.finance_app.repository;
+
+import com.jfallon.finance_app.model.BudgetCarryover;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+@Repository
+public interface BudgetCarryoverRepository extends JpaRepository<BudgetCarryover, Long> {
+    // Latest materialized row at or before the month for every chain that has started by then
+    @Query("SELECT b FROM BudgetCarryover b WHERE b.user.id = :userId AND b.month = " +
+            "(SELECT MAX(b2.month) FROM BudgetCarryover b2 WHERE b2.user.id = :userId " +
+            "AND b2.categoryId = b.categoryId AND b2.month <= :month)")
+    List<BudgetCarryover> findLatestPerCategory(Long userId, YearMonth month);
+
+    @Query("SELECT MIN(b.month) FROM BudgetCarryover b WHERE b.user.id = :userId AND b.categoryId = :categoryId")
+    YearMonth findChainStart(Long userId, Integer categoryId);
+
+    // A change in one month moves what every later month carries in; earlier rows are untouched
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE budget_carryovers SET carried_in = carried_in + :delta " +
+            "WHERE user_id = :userId AND category_id = :categoryId AND month_start > :monthStart", nativeQuery = true)
+    int shiftAfter(Long userId, Integer categoryId, LocalDate monthStart, BigDecimal delta);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM budget_carryovers WHERE user_id = :userId AND category_id = :categoryId", nativeQuery = true)
+    int deleteChain(Long userId, Integer categoryId);
+
+    @Modifying
+    @Query(value = "DELETE FROM budget_carryovers WHERE user_id = :userId", nativeQuery = true)
+    void deleteByUserId(Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM budget_carryovers", nativeQuery = true)
+    void deleteAllRows();
+
+    // Serializes chain maintenance per user so an extension never misses a concurrent shift; the two-key form keeps
+    // these locks apart from the single-key migration lock
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:namespace, CAST(:userId % 2147483648 AS integer))) l",
+            nativeQuery = true)
+    Integer lockForUser(int namespace, Long userId);
+}
@@ -6,11 +6,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BudgetRepository extends JpaRepository<Budget, Long> {
     List<Budget> findByUser(User user);
     List<Budget> findByUserAndBudgetMonth(User user, YearMonth budgetMonth);
-    List<Budget> findByUserAndCategory(User user, String category);
+    List<Budget> findByUser_IdAndBudgetMonthAndCategoryId(Long userId, YearMonth budgetMonth, Integer categoryId);
+    List<Budget> findByUserAndBudgetMonthIn(User user, Collection<YearMonth> budgetMonths);
+    List<Budget> findByUserAndCategoryId(User user, Integer categoryId);
 }
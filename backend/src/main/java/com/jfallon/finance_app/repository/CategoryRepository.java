@@ -0,0 +1,24 @@
+package com.jfallon.finance_app.repository;
+
+import com.jfallon.finance_app.model.Category;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CategoryRepository extends JpaRepository<Category, Integer> {
+    List<Category> findByUser_IdOrderByNameAsc(Long userId);
+
+    @Query("SELECT c FROM Category c WHERE c.user.id = :userId AND lower(c.name) = lower(:name)")
+    Optional<Category> findByUserIdAndName(Long userId, String name);
+
+    // Concurrent writers of the same name wait on uk_categories_user_name and the loser inserts nothing
+    @Modifying
+    @Query(value = "INSERT INTO categories (user_id, name) VALUES (:userId, :name) " +
+            "ON CONFLICT (user_id, lower(name)) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(Long userId, String name);
+}
@@ -0,0 +1,68 @@
+package com.jfallon.finance_app.repository;
+
+import com.jfallon.finance_app.dto.EntrySearchQuery;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Builds the search predicate for Expense and Income, which share user/amount/frequency/startDate
+public final class EntrySpecifications {
+
+    private EntrySpecifications() {
+    }
+
+    // "field" or "field,asc|desc"; id is always appended so pages are stable when the sort key ties
+    public static Sort sort(String sort, String categoryAttribute) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.by(Sort.Order.desc("startDate"), Sort.Order.desc("id"));
+        }
+        String[] parts = sort.split(",");
+        Map<String, String> attributes = Map.of(
+                "date", "startDate",
+                "amount", "amount",
+                "category", categoryAttribute,
+                "frequency", "frequency");
+        String attribute = attributes.get(parts[0].trim());
+        if (attribute == null) {
+            throw new IllegalArgumentException("Unsupported sort field: " + parts[0].trim());
+        }
+        Sort.Direction direction = parts.length > 1 ? Sort.Direction.fromString(parts[1].trim()) : Sort.Direction.ASC;
+        return Sort.by(new Sort.Order(direction, attribute), new Sort.Order(direction, "id"));
+    }
+
+    public static <T> Specification<T> matching(EntrySearchQuery query, String categoryAttribute) {
+        return (root, criteriaQuery, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("user"), query.getUser()));
+
+            if (query.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("startDate"), query.getFrom()));
+            }
+            if (query.getTo() != null) {
+                predicates.add(cb.lessThan(root.get("startDate"), query.getTo()));
+            }
+            if (query.getCategoryIds() != null) {
+                // Names unknown to the dictionary resolve to no ids and so match nothing
+                predicates.add(query.getCategoryIds().isEmpty()
+                        ? cb.disjunction()
+                        : root.get("categoryId").in(query.getCategoryIds()));
+            } else if (query.getCategories() != null && !query.getCategories().isEmpty()) {
+                predicates.add(root.get(categoryAttribute).in(query.getCategories()));
+            }
+            if (query.getMinAmount() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("amount"), query.getMinAmount()));
+            }
+            if (query.getMaxAmount() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("amount"), query.getMaxAmount()));
+            }
+            if (query.getFrequency() != null) {
+                predicates.add(cb.equal(root.get("frequency"), query.getFrequency()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
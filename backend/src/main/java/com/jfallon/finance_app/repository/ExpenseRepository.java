@@ -3,9 +3,18 @@ package com.jfallon.finance_app.repository;
 import com.jfallon.finance_app.model.Expense;
 import com.jfallon.finance_app.userauth.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpecificationExecutor<Expense> {
     List<Expense> findByUser(User user);
+
+    List<Expense> findByUserAndStartDateGreaterThanEqualAndStartDateLessThan(User user, LocalDateTime from, LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.user = :user AND e.startDate > :from")
+    BigDecimal sumAmountStartedAfter(User user, LocalDateTime from);
 }
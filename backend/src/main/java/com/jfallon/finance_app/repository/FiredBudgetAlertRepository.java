@@ -0,0 +1,34 @@
+package com.jfallon.finance_app.repository;
+
+import com.jfallon.finance_app.model.FiredBudgetAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FiredBudgetAlertRepository extends JpaRepository<FiredBudgetAlert, Long> {
+    List<FiredBudgetAlert> findTop20ByUser_IdOrderByTriggeredAtDesc(Long userId);
+
+    // Returns 1 only for the write that first reaches the threshold in this bucket
+    @Modifying
+    @Query(value = "INSERT INTO fired_budget_alerts (user_id, month_start, category, threshold_percent, budget, spent, triggered_at) " +
+            "VALUES (:userId, :monthStart, :category, :thresholdPercent, :budget, :spent, :triggeredAt) " +
+            "ON CONFLICT (user_id, month_start, category, threshold_percent) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(Long userId, LocalDate monthStart, String category, int thresholdPercent,
+                       BigDecimal budget, BigDecimal spent, LocalDateTime triggeredAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM fired_budget_alerts WHERE user_id = :userId AND month_start = :monthStart " +
+            "AND category = :category AND threshold_percent > :percent", nativeQuery = true)
+    int deleteAbove(Long userId, LocalDate monthStart, String category, int percent);
+
+    @Modifying
+    @Query(value = "DELETE FROM fired_budget_alerts WHERE month_start < :monthStart", nativeQuery = true)
+    int deleteBefore(LocalDate monthStart);
+}
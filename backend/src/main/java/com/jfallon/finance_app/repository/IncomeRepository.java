@@ -3,9 +3,10 @@ package com.jfallon.finance_app.repository;
 import com.jfallon.finance_app.model.Income;
 import com.jfallon.finance_app.userauth.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.util.List;
 
-public interface IncomeRepository extends JpaRepository<Income, Long> {
+public interface IncomeRepository extends JpaRepository<Income, Long>, JpaSpecificationExecutor<Income> {
     List<Income> findByUser(User user);
 }
@@ -0,0 +1,74 @@
+package com.jfallon.finance_app.repository;
+
+import com.jfallon.finance_app.model.MonthlyCategoryTotal;
+import com.jfallon.finance_app.userauth.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MonthlyCategoryTotalRepository extends JpaRepository<MonthlyCategoryTotal, Long> {
+    List<MonthlyCategoryTotal> findByUserAndMonthAndType(User user, YearMonth month, String type);
+
+    Optional<MonthlyCategoryTotal> findByUser_IdAndMonthAndCategoryAndType(Long userId, YearMonth month, String category, String type);
+
+    List<MonthlyCategoryTotal> findByUserAndTypeAndMonthBetween(User user, String type, YearMonth from, YearMonth to);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_category_totals (user_id, month_start, category, type, total, entry_count) " +
+            "VALUES (:userId, :monthStart, :category, :type, :amount, :count) " +
+            "ON CONFLICT (user_id, month_start, category, type) DO UPDATE SET " +
+            "total = monthly_category_totals.total + EXCLUDED.total, " +
+            "entry_count = monthly_category_totals.entry_count + EXCLUDED.entry_count", nativeQuery = true)
+    void addToTotal(Long userId, LocalDate monthStart, String category, String type, BigDecimal amount, long count);
+
+    @Query("SELECT m.category AS category, SUM(m.total) AS total FROM MonthlyCategoryTotal m " +
+            "WHERE m.user = :user AND m.type = :type GROUP BY m.category")
+    List<CategoryTotal> sumByCategory(User user, String type);
+
+    @Query("SELECT m.category AS category, SUM(m.total) AS total FROM MonthlyCategoryTotal m " +
+            "WHERE m.user = :user AND m.type = :type AND m.month >= :from GROUP BY m.category")
+    List<CategoryTotal> sumByCategorySince(User user, String type, YearMonth from);
+
+    @Query("SELECT m.month AS month, SUM(m.total) AS total FROM MonthlyCategoryTotal m " +
+            "WHERE m.user = :user AND m.type = :type AND m.month >= :from GROUP BY m.month ORDER BY m.month")
+    List<MonthTotal> sumByMonthSince(User user, String type, YearMonth from);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_category_totals WHERE user_id = :userId", nativeQuery = true)
+    void deleteByUserId(Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_category_totals (user_id, month_start, category, type, total, entry_count) " +
+            "SELECT t.user_id, CAST(date_trunc('month', t.transaction_date) AS date), COALESCE(c.name, t.category, ''), t.type, " +
+            "SUM(t.amount), COUNT(*) FROM transactions t LEFT JOIN categories c ON c.id = t.category_id " +
+            "WHERE t.user_id = :userId GROUP BY 1, 2, 3, 4", nativeQuery = true)
+    int rebuildForUserId(Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_category_totals", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_category_totals (user_id, month_start, category, type, total, entry_count) " +
+            "SELECT t.user_id, CAST(date_trunc('month', t.transaction_date) AS date), COALESCE(c.name, t.category, ''), t.type, " +
+            "SUM(t.amount), COUNT(*) FROM transactions t LEFT JOIN categories c ON c.id = t.category_id GROUP BY 1, 2, 3, 4", nativeQuery = true)
+    int rebuildAllRows();
+
+    interface CategoryTotal {
+        String getCategory();
+        BigDecimal getTotal();
+    }
+
+    interface MonthTotal {
+        YearMonth getMonth();
+        BigDecimal getTotal();
+    }
+}
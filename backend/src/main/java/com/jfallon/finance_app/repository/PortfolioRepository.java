@@ -2,9 +2,24 @@ package com.jfallon.finance_app.repository;
 
 import com.jfallon.finance_app.model.Portfolio;
 import com.jfallon.finance_app.userauth.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 
 public interface PortfolioRepository extends JpaRepository<Portfolio, Long> {
+    // Holdings come back with the portfolio so callers outside a session (e.g. dashboard workers) can read them
+    @EntityGraph(attributePaths = "stocks")
     Portfolio findByUser(User user);
+
+    @Query(value = "SELECT upper(stock_name) AS symbol, COUNT(DISTINCT portfolio_id) AS holders " +
+            "FROM portfolio_stocks GROUP BY upper(stock_name)", nativeQuery = true)
+    List<SymbolHolders> countHoldersBySymbol();
+
+    interface SymbolHolders {
+        String getSymbol();
+        long getHolders();
+    }
 }
@@ -2,15 +2,22 @@ package com.jfallon.finance_app.repository;
 
 import com.jfallon.finance_app.model.Transaction;
 import com.jfallon.finance_app.userauth.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionRepositoryCustom {
     List<Transaction> findByUserOrderByTransactionDateDesc(User user);
 
     @Query("SELECT t FROM Transaction t WHERE t.user = :user AND t.transactionDate >= :date ORDER BY t.transactionDate DESC")
@@ -20,6 +27,10 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     Optional<Transaction> findByReferenceTypeAndReferenceId(String referenceType, Long referenceId);
 
+    List<Transaction> findAllByReferenceTypeAndReferenceId(String referenceType, Long referenceId);
+
+    List<Transaction> findAllByReferenceTypeAndReferenceIdIn(String referenceType, Collection<Long> referenceIds);
+
     void deleteByReferenceTypeAndReferenceId(String referenceType, Long referenceId);
 
     List<Transaction> findByUserOrderByTransactionDateAsc(User user);
@@ -34,4 +45,76 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             String type,
             LocalDateTime date
     );
+
+    // Server-side cursor for exports; must be consumed inside a transaction and closed by the caller
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.user = :user ORDER BY t.transactionDate ASC, t.id ASC")
+    Stream<Transaction> streamByUser(User user);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.type = 'EXPENSE' THEN -t.amount ELSE t.amount END), 0) " +
+            "FROM Transaction t WHERE t.user = :user")
+    BigDecimal sumSignedAmountByUser(User user);
+
+    @Query("SELECT t.user.id AS userId, SUM(CASE WHEN t.type = 'EXPENSE' THEN -t.amount ELSE t.amount END) AS total " +
+            "FROM Transaction t WHERE t.user.id IN :userIds GROUP BY t.user.id")
+    List<UserLedgerTotal> sumSignedAmountByUserIds(Collection<Long> userIds);
+
+    @Query(value = "SELECT to_char(p.period, 'YYYY-MM-DD') AS period, SUM(p.amount) AS total FROM (" +
+            "SELECT date_trunc(:unit, t.transaction_date) AS period, t.amount FROM transactions t " +
+            "WHERE t.user_id = :userId AND t.type = :type AND t.transaction_date >= :from) p " +
+            "GROUP BY p.period ORDER BY p.period", nativeQuery = true)
+    List<PeriodTotal> sumAmountByPeriod(Long userId, String type, String unit, LocalDateTime from);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.type = 'EXPENSE' THEN -t.amount ELSE t.amount END), 0) " +
+            "FROM Transaction t WHERE t.user = :user AND t.transactionDate >= :from AND t.transactionDate < :to")
+    BigDecimal sumSignedAmountBetween(User user, LocalDateTime from, LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.type = 'EXPENSE' THEN -t.amount ELSE t.amount END), 0) " +
+            "FROM Transaction t WHERE t.user = :user AND t.transactionDate < :to")
+    BigDecimal sumSignedAmountBefore(User user, LocalDateTime to);
+
+    @Query("SELECT MIN(t.transactionDate) FROM Transaction t WHERE t.user = :user")
+    LocalDateTime findFirstTransactionDate(User user);
+
+    // Net change per month
+    @Query(value = "SELECT to_char(date_trunc('month', t.transaction_date), 'YYYY-MM-DD') AS month, " +
+            "SUM(CASE WHEN t.type = 'EXPENSE' THEN -t.amount ELSE t.amount END) AS total " +
+            "FROM transactions t WHERE t.user_id = :userId AND t.transaction_date >= :from AND t.transaction_date < :to " +
+            "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<MonthLedgerTotal> sumSignedAmountByMonth(Long userId, LocalDateTime from, LocalDateTime to);
+
+    interface UserLedgerTotal {
+        Long getUserId();
+        BigDecimal getTotal();
+    }
+
+    // Closing balance of every period in [from, to), including empty ones, in a single pass over the range
+    @Query(value = "SELECT to_char(s.period, 'YYYY-MM-DD') AS period, COALESCE(d.net, 0) AS net, " +
+            "CAST(:opening AS numeric) + SUM(COALESCE(d.net, 0)) OVER (ORDER BY s.period) AS balance " +
+            "FROM generate_series(CAST(:from AS timestamp), CAST(:to AS timestamp) - interval '1 day', " +
+            "CAST('1 ' || :unit AS interval)) AS s(period) " +
+            "LEFT JOIN (SELECT date_trunc(:unit, t.transaction_date) AS period, " +
+            "SUM(CASE WHEN t.type = 'EXPENSE' THEN -t.amount ELSE t.amount END) AS net FROM transactions t " +
+            "WHERE t.user_id = :userId AND t.transaction_date >= :from AND t.transaction_date < :to GROUP BY 1) d " +
+            "ON d.period = s.period ORDER BY s.period", nativeQuery = true)
+    List<RunningBalance> runningBalanceByPeriod(Long userId, String unit, BigDecimal opening, LocalDateTime from, LocalDateTime to);
+
+    interface RunningBalance {
+        String getPeriod(); // ISO date of the period start
+        BigDecimal getNet();
+        BigDecimal getBalance();
+    }
+
+    interface MonthLedgerTotal {
+        String getMonth(); // ISO date of the first day of the month
+        BigDecimal getTotal();
+    }
+
+    interface PeriodTotal {
+        String getPeriod(); // ISO date of the period start
+        BigDecimal getTotal();
+    }
 }
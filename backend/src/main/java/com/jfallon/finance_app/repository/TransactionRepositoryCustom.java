@@ -0,0 +1,10 @@
+package com.jfallon.finance_app.repository;
+
+import com.jfallon.finance_app.dto.TransactionHistoryQuery;
+import com.jfallon.finance_app.model.Transaction;
+
+import java.util.List;
+
+public interface TransactionRepositoryCustom {
+    List<Transaction> findHistoryPage(TransactionHistoryQuery query, int limit);
+}
@@ -0,0 +1,68 @@
+package com.jfallon.finance_app.repository;
+
+import com.jfallon.finance_app.dto.TransactionHistoryQuery;
+import com.jfallon.finance_app.model.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Transaction> findHistoryPage(TransactionHistoryQuery query, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Transaction> cq = cb.createQuery(Transaction.class);
+        Root<Transaction> t = cq.from(Transaction.class);
+        Path<LocalDateTime> date = t.get("transactionDate");
+        Path<Long> id = t.get("id");
+
+        // Only bind the filters that were supplied; user, dates and cursor all bound the (user_id, transaction_date, id) index
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(t.get("user"), query.getUser()));
+        if (query.getType() != null) {
+            predicates.add(cb.equal(t.get("type"), query.getType()));
+        }
+        if (query.getCategory() != null) {
+            // Expense rows match on the dictionary id, income rows on their own text
+            Predicate label = cb.equal(cb.lower(t.get("categoryLabel")), query.getCategory().trim().toLowerCase(Locale.ROOT));
+            predicates.add(query.getCategoryId() != null
+                    ? cb.or(cb.equal(t.get("categoryId"), query.getCategoryId()), label)
+                    : label);
+        }
+        if (query.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(date, query.getFrom()));
+        }
+        if (query.getTo() != null) {
+            predicates.add(cb.lessThan(date, query.getTo()));
+        }
+        if (query.getCursorDate() != null && query.getCursorId() != null) {
+            // Keyset: strictly after the last row of the previous page in (transactionDate DESC, id DESC) order.
+            // The OR alone can't bound an index scan, so the redundant date bound starts the scan at the cursor
+            // and the OR only filters the rows that share its date; deep pages cost the same as the first.
+            predicates.add(cb.lessThanOrEqualTo(date, query.getCursorDate()));
+            predicates.add(cb.or(
+                    cb.lessThan(date, query.getCursorDate()),
+                    cb.and(cb.equal(date, query.getCursorDate()), cb.lessThan(id, query.getCursorId()))
+            ));
+        }
+
+        cq.select(t)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(date), cb.desc(id));
+
+        return entityManager.createQuery(cq)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,119 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.AlphaVantageResponse;
+import com.jfallon.finance_app.exception.StockDataException;
+import com.jfallon.finance_app.model.Stock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+@Service
+@ConditionalOnProperty(name = "quote.provider", havingValue = "alphavantage", matchIfMissing = true)
+public class AlphaVantageQuoteProvider implements QuoteProvider {
+    private static final Logger logger = LoggerFactory.getLogger(AlphaVantageQuoteProvider.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final RestTemplate restTemplate;
+    private final String apiKey;
+
+    public AlphaVantageQuoteProvider(
+            @Value("${alphavantage.api.key}") String apiKey,
+            @Value("${alphavantage.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${alphavantage.read-timeout-ms:10000}") int readTimeoutMs) {
+        // Without timeouts one hung upstream call holds every waiter coalesced on that symbol
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public Stock fetchQuote(String symbol) {
+        String url = buildApiUrl(symbol);
+
+        try {
+            ResponseEntity<AlphaVantageResponse> response = restTemplate.getForEntity(
+                    url,
+                    AlphaVantageResponse.class
+            );
+
+            //Check for rate limit
+
+            return Optional.ofNullable(response.getBody())
+                    .map(AlphaVantageResponse::getGlobalQuote)
+                    .map(AlphaVantageQuoteProvider::mapToStockPrice)
+                    .orElseThrow(() -> new StockDataException("Empty response received for symbol: " + symbol));
+
+        } catch (RestClientException e) {
+            logger.error("Failed to fetch stock data for symbol: {}", symbol, e);
+            throw new StockDataException("Failed to fetch stock data for symbol: " + symbol, e);
+        } catch (Exception e) {
+            logger.error("Unexpected error while processing stock data for symbol: {}", symbol, e);
+            throw new StockDataException("Error processing stock data for symbol: " + symbol, e);
+        }
+    }
+
+    private String buildApiUrl(String symbol) {
+        return String.format(
+                "https://www.alphavantage.co/query?function=GLOBAL_QUOTE&symbol=%s&apikey=%s",
+                symbol.trim().toUpperCase(),
+                apiKey
+        );
+    }
+
+    // Shared with the replay provider, which serves recorded GLOBAL_QUOTE responses
+    static Stock mapToStockPrice(AlphaVantageResponse.GlobalQuote quote) {
+        try {
+            Stock stockPrice = new Stock();
+            stockPrice.setSymbol(quote.getSymbol());
+            stockPrice.setCurrentPrice(parseDecimal(quote.getPrice()));
+            stockPrice.setDailyChange(parseDecimal(quote.getChange()));
+            stockPrice.setDailyChangePercent(parseDecimal(quote.getChangePercent().replace("%", "")));
+            stockPrice.setPreviousClose(parseDecimal(quote.getPreviousClose()));
+            stockPrice.setVolume(Long.parseLong(quote.getVolume()));
+            stockPrice.setOpen(parseDecimal(quote.getOpen()));
+            stockPrice.setHigh(parseDecimal(quote.getHigh()));
+            stockPrice.setLow(parseDecimal(quote.getLow()));
+            stockPrice.setLatestTradingDay(LocalDate.parse(quote.getLatestTradingDay(), DATE_FORMATTER));
+
+            validateStockPrice(stockPrice);
+            return stockPrice;
+
+        } catch (NumberFormatException e) {
+            throw new StockDataException("Failed to parse numeric values from API response", e);
+        } catch (Exception e) {
+            throw new StockDataException("Failed to map API response to StockPrice", e);
+        }
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new StockDataException("Received null or empty decimal value from API");
+        }
+        return new BigDecimal(value.trim());
+    }
+
+    private static void validateStockPrice(Stock stockPrice) {
+        if (stockPrice.getCurrentPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new StockDataException("Invalid current price: " + stockPrice.getCurrentPrice());
+        }
+        if (stockPrice.getVolume() <= 0) {
+            throw new StockDataException("Invalid volume: " + stockPrice.getVolume());
+        }
+        if (stockPrice.getLatestTradingDay() == null) {
+            throw new StockDataException("Missing latest trading day");
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.ReconciliationReport;
+import com.jfallon.finance_app.event.UserDataChangedEvent;
+import com.jfallon.finance_app.model.Balance;
+import com.jfallon.finance_app.repository.BalanceRepository;
+import com.jfallon.finance_app.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+public class BalanceReconciliationService {
+    private static final Logger logger = LoggerFactory.getLogger(BalanceReconciliationService.class);
+    private static final int MAX_REPORTED_DRIFTS = 100;
+
+    private final BalanceRepository balanceRepository;
+    private final TransactionRepository transactionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate chunkTemplate;
+    private final TransactionTemplate repairTemplate;
+    private final int chunkSize;
+    private final boolean repair;
+
+    private volatile ReconciliationReport lastReport;
+
+    public BalanceReconciliationService(
+            BalanceRepository balanceRepository,
+            TransactionRepository transactionRepository,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${balance.reconciliation.chunk-size:500}") int chunkSize,
+            @Value("${balance.reconciliation.repair:false}") boolean repair) {
+        this.balanceRepository = balanceRepository;
+        this.transactionRepository = transactionRepository;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.repair = repair;
+
+        // Each chunk reads balances and ledger sums from one snapshot so in-flight writes don't show up as drift
+        this.chunkTemplate = new TransactionTemplate(transactionManager);
+        this.chunkTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.repairTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${balance.reconciliation.cron:0 30 3 * * *}")
+    public ReconciliationReport reconcileAll() {
+        ReconciliationReport report = new ReconciliationReport();
+        report.setStartedAt(LocalDateTime.now());
+
+        long lastId = 0L;
+        while (true) {
+            final long afterId = lastId;
+            List<ReconciliationReport.Drift> found = new ArrayList<>();
+            Long nextId = chunkTemplate.execute(status -> reconcileChunk(afterId, report, found));
+            if (repair) {
+                found.forEach(drift -> repair(drift, report));
+            }
+            if (nextId == null) {
+                break;
+            }
+            lastId = nextId;
+        }
+
+        report.setFinishedAt(LocalDateTime.now());
+        lastReport = report;
+
+        if (report.getDrifted() > 0) {
+            logger.warn("Balance reconciliation found {} of {} balances drifting from the ledger ({} repaired, {} failed)",
+                    report.getDrifted(), report.getChecked(), report.getRepaired(), report.getRepairFailed());
+        } else {
+            logger.info("Balance reconciliation checked {} balances, no drift", report.getChecked());
+        }
+        return report;
+    }
+
+    public ReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    // Returns the last balance id in the chunk, or null once every balance has been checked
+    private Long reconcileChunk(long afterId, ReconciliationReport report, List<ReconciliationReport.Drift> found) {
+        List<Balance> balances = balanceRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(chunkSize));
+        if (balances.isEmpty()) {
+            return null;
+        }
+
+        List<Long> userIds = balances.stream().map(balance -> balance.getUser().getId()).collect(Collectors.toList());
+        Map<Long, BigDecimal> ledgerTotals = transactionRepository.sumSignedAmountByUserIds(userIds).stream()
+                .collect(Collectors.toMap(TransactionRepository.UserLedgerTotal::getUserId,
+                        TransactionRepository.UserLedgerTotal::getTotal));
+
+        for (Balance balance : balances) {
+            BigDecimal expected = ledgerTotals.getOrDefault(balance.getUser().getId(), BigDecimal.ZERO);
+            report.setChecked(report.getChecked() + 1);
+            if (expected.compareTo(balance.getCurrentBalance()) == 0) {
+                continue;
+            }
+
+            ReconciliationReport.Drift drift = new ReconciliationReport.Drift(
+                    balance.getUser().getId(), balance.getCurrentBalance(), expected);
+            report.setDrifted(report.getDrifted() + 1);
+            if (report.getDrifts().size() < MAX_REPORTED_DRIFTS) {
+                report.getDrifts().add(drift);
+            }
+            found.add(drift);
+            logger.warn("Balance drift for user {}: materialized={} ledger={}",
+                    balance.getUser().getId(), balance.getCurrentBalance(), expected);
+        }
+        return balances.get(balances.size() - 1).getId();
+    }
+
+    // Runs after the chunk's snapshot is released, one short transaction per balance. Writes committed since the
+    // snapshot moved the ledger and the balance by the same amount, so adding the observed difference is still right
+    // where overwriting with the snapshot's ledger sum would not be.
+    private void repair(ReconciliationReport.Drift drift, ReconciliationReport report) {
+        try {
+            repairTemplate.executeWithoutResult(status -> {
+                balanceRepository.addToBalance(drift.getUserId(), drift.getLedger().subtract(drift.getMaterialized()),
+                        LocalDateTime.now());
+                eventPublisher.publishEvent(new UserDataChangedEvent(drift.getUserId(), UserDataChangedEvent.Kind.BALANCE));
+            });
+            report.setRepaired(report.getRepaired() + 1);
+        } catch (RuntimeException e) {
+            report.setRepairFailed(report.getRepairFailed() + 1);
+            logger.error("Failed to repair balance for user {}", drift.getUserId(), e);
+        }
+    }
+}
@@ -1,29 +1,46 @@
 package com.jfallon.finance_app.service;
 
+import com.jfallon.finance_app.event.UserDataChangedEvent;
 import com.jfallon.finance_app.model.Balance;
 import com.jfallon.finance_app.repository.BalanceRepository;
 import com.jfallon.finance_app.userauth.model.User;
-import lombok.RequiredArgsConstructor;
-import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Service
-@RequiredArgsConstructor
 public class BalanceService {
     private final BalanceRepository balanceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional(readOnly = true)
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BalanceService(
+            BalanceRepository balanceRepository,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager) {
+        this.balanceRepository = balanceRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional
     public Balance getOrCreateBalance(User user) {
         return balanceRepository.findByUser(user)
                 .orElseGet(() -> {
-                    Balance balance = new Balance();
-                    balance.setUser(user);
-                    balance.setCurrentBalance(BigDecimal.ZERO);
-                    balance.setLastUpdated(LocalDateTime.now());
-                    return balanceRepository.save(balance);
+                    // First access for this user: seed the materialized balance from the existing ledger
+                    balanceRepository.insertFromLedgerIfAbsent(user.getId(), LocalDateTime.now());
+                    return balanceRepository.findByUser(user).orElseThrow();
                 });
     }
 
@@ -34,30 +51,72 @@ public class BalanceService {
 
     @Transactional
     public Balance updateBalance(User user, BigDecimal amount, String transactionType) {
-        for (int i = 0; i < 3; i++) {  // Retry up to 3 times
-            try {
-                Balance balance = getOrCreateBalance(user);
-
-                if ("EXPENSE".equals(transactionType)) {
-                    amount = amount.negate();
-                }
-
-                balance.setCurrentBalance(balance.getCurrentBalance().add(amount));
-                balance.setLastUpdated(LocalDateTime.now());
-                return balanceRepository.save(balance);
-            } catch (ObjectOptimisticLockingFailureException e) {
-                // Log the exception and retry
-                System.out.println("Optimistic locking failure, retrying... " + (i + 1));
-            }
+        if ("EXPENSE".equals(transactionType)) {
+            amount = amount.negate();
+        }
+        applyDelta(user, amount);
+        return reload(user);
+    }
+
+    // Every ledger write funnels through here; the version is bumped even for a zero delta so readers see the change
+    @Transactional
+    public void applyDelta(User user, BigDecimal delta) {
+        LocalDateTime now = LocalDateTime.now();
+        if (balanceRepository.addToBalance(user.getId(), delta, now) == 0) {
+            balanceRepository.insertFromLedgerIfAbsent(user.getId(), now);
+            balanceRepository.addToBalance(user.getId(), delta, now);
+        }
+    }
+
+    // Edits must call this before they mutate ledger rows: the seed sums the ledger and flushes first, so a row
+    // changed in memory would be counted at its new amount and then again through the edit's delta
+    @Transactional
+    public void seedIfAbsent(User user) {
+        if (balanceRepository.findVersionByUserId(user.getId()).isEmpty()) {
+            balanceRepository.insertFromLedgerIfAbsent(user.getId(), LocalDateTime.now());
         }
-        throw new RuntimeException("Failed to update balance after multiple attempts");
     }
 
     @Transactional
     public Balance setBalance(User user, BigDecimal newBalance) {
-        Balance balance = getOrCreateBalance(user);
-        balance.setCurrentBalance(newBalance);
-        balance.setLastUpdated(LocalDateTime.now());
-        return balanceRepository.save(balance);
+        LocalDateTime now = LocalDateTime.now();
+        if (balanceRepository.overwriteBalance(user.getId(), newBalance, now) == 0) {
+            balanceRepository.insertFromLedgerIfAbsent(user.getId(), now);
+            balanceRepository.overwriteBalance(user.getId(), newBalance, now);
+        }
+        // Not a ledger write, so nothing else would tell balance readers
+        eventPublisher.publishEvent(new UserDataChangedEvent(user.getId(), UserDataChangedEvent.Kind.BALANCE));
+        return reload(user);
+    }
+
+    // Monotonic per-user data version: bumped by every ledger write, manual balance change and non-ledger data change
+    @Transactional
+    public long getDataVersion(User user) {
+        Long version = balanceRepository.findVersionByUserId(user.getId())
+                .orElseGet(() -> getOrCreateBalance(user).getVersion());
+        return version != null ? version : 0L;
+    }
+
+    // Expense, income and portfolio edits that don't touch the ledger still change what the dashboard shows.
+    // The template joins the writer's transaction at BEFORE_COMMIT and only opens its own on the fallback path.
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        if (event.kind() == UserDataChangedEvent.Kind.BALANCE) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // A user without a balances row yet has no version to bump, so seed it from the ledger first
+            if (balanceRepository.incrementVersion(event.userId()) == 0) {
+                balanceRepository.insertFromLedgerIfAbsent(event.userId(), LocalDateTime.now());
+                balanceRepository.incrementVersion(event.userId());
+            }
+        });
+    }
+
+    // The delta statements bypass the persistence context, so a Balance loaded earlier in this transaction is stale
+    private Balance reload(User user) {
+        Balance balance = balanceRepository.findByUser(user).orElseThrow();
+        entityManager.refresh(balance);
+        return balance;
     }
 }
@@ -0,0 +1,197 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.Granularity;
+import com.jfallon.finance_app.model.Balance;
+import com.jfallon.finance_app.model.BalanceSnapshot;
+import com.jfallon.finance_app.repository.BalanceRepository;
+import com.jfallon.finance_app.repository.BalanceSnapshotRepository;
+import com.jfallon.finance_app.repository.TransactionRepository;
+import com.jfallon.finance_app.userauth.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// Month-start balance checkpoints over the transaction ledger; any historical balance is a checkpoint plus one bounded scan
+@Service
+public class BalanceSnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(BalanceSnapshotService.class);
+    private static final int USER_CHUNK_SIZE = 500;
+    private static final int LOCK_NAMESPACE = 0x4253;
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final BalanceRepository balanceRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate userTemplate;
+
+    public BalanceSnapshotService(
+            BalanceSnapshotRepository balanceSnapshotRepository,
+            BalanceRepository balanceRepository,
+            TransactionRepository transactionRepository,
+            PlatformTransactionManager transactionManager) {
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.balanceRepository = balanceRepository;
+        this.transactionRepository = transactionRepository;
+        this.userTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Balance at the end of the given day
+    @Transactional(readOnly = true)
+    public Map<String, Object> getBalanceAt(User user, LocalDate date) {
+        LocalDate boundary = date.plusDays(1);
+        Optional<BalanceSnapshot> snapshot = balanceSnapshotRepository
+                .findFirstByUserAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(user, boundary);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("date", date.toString());
+        result.put("balance", balanceBefore(user, boundary, snapshot));
+        result.put("snapshotDate", snapshot.map(s -> s.getSnapshotDate().toString()).orElse(null));
+        return result;
+    }
+
+    private BigDecimal balanceBefore(User user, LocalDate boundary) {
+        return balanceBefore(user, boundary, balanceSnapshotRepository
+                .findFirstByUserAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(user, boundary));
+    }
+
+    private BigDecimal balanceBefore(User user, LocalDate boundary, Optional<BalanceSnapshot> snapshot) {
+        if (snapshot.isEmpty()) {
+            return transactionRepository.sumSignedAmountBefore(user, boundary.atStartOfDay());
+        }
+        return snapshot.get().getBalance().add(transactionRepository.sumSignedAmountBetween(
+                user, snapshot.get().getSnapshotDate().atStartOfDay(), boundary.atStartOfDay()));
+    }
+
+    // Running closing balance per period between two dates; the opening balance comes from the nearest snapshot
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getRunningBalance(User user, LocalDate from, LocalDate to, Granularity granularity) {
+        LocalDate start = granularity.truncate(from);
+        LocalDate end = granularity.next(granularity.truncate(to));
+        BigDecimal opening = balanceBefore(user, start);
+
+        return transactionRepository.runningBalanceByPeriod(
+                        user.getId(), granularity.getSqlUnit(), opening, start.atStartOfDay(), end.atStartOfDay())
+                .stream()
+                .map(row -> {
+                    Map<String, Object> point = new HashMap<>();
+                    point.put("date", row.getPeriod());
+                    point.put("label", granularity.label(LocalDate.parse(row.getPeriod())));
+                    point.put("net", row.getNet());
+                    point.put("balance", row.getBalance());
+                    return point;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // Called from every ledger write; only snapshots that already include the affected date are dropped
+    @Transactional
+    public void invalidateFrom(User user, LocalDateTime transactionDate) {
+        // Snapshots are never taken past the start of the current month, so current-month writes skip the delete
+        if (!transactionDate.toLocalDate().isBefore(YearMonth.now().atDay(1))) {
+            return;
+        }
+        // Held until the write commits, so a build running now either finishes first (and its snapshots are deleted
+        // here) or waits and then reads this write
+        balanceSnapshotRepository.lockForUser(LOCK_NAMESPACE, user.getId());
+        int removed = balanceSnapshotRepository.deleteByUserIdAndSnapshotDateAfter(user.getId(), transactionDate.toLocalDate());
+        if (removed > 0) {
+            logger.debug("Back-dated write for user {} on {} invalidated {} balance snapshots",
+                    user.getId(), transactionDate.toLocalDate(), removed);
+        }
+    }
+
+    // Extends the user's snapshots from the latest valid one up to the start of the current month
+    @Transactional
+    public int buildSnapshots(User user) {
+        LocalDate target = YearMonth.now().atDay(1);
+        balanceSnapshotRepository.lockForUser(LOCK_NAMESPACE, user.getId());
+        Optional<BalanceSnapshot> latest = balanceSnapshotRepository.findFirstByUserOrderBySnapshotDateDesc(user);
+
+        LocalDate from;
+        BigDecimal balance;
+        if (latest.isPresent()) {
+            from = latest.get().getSnapshotDate();
+            balance = latest.get().getBalance();
+        } else {
+            LocalDateTime first = transactionRepository.findFirstTransactionDate(user);
+            if (first == null) {
+                return 0;
+            }
+            from = YearMonth.from(first).atDay(1);
+            balance = BigDecimal.ZERO;
+        }
+        if (!from.isBefore(target)) {
+            return 0;
+        }
+
+        Map<YearMonth, TransactionRepository.MonthLedgerTotal> totals = new HashMap<>();
+        for (TransactionRepository.MonthLedgerTotal total : transactionRepository.sumSignedAmountByMonth(
+                user.getId(), from.atStartOfDay(), target.atStartOfDay())) {
+            totals.put(YearMonth.from(LocalDate.parse(total.getMonth())), total);
+        }
+
+        int created = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (YearMonth month = YearMonth.from(from); month.atDay(1).isBefore(target); month = month.plusMonths(1)) {
+            TransactionRepository.MonthLedgerTotal total = totals.get(month);
+            if (total != null) {
+                balance = balance.add(total.getTotal());
+            }
+
+            BalanceSnapshot snapshot = new BalanceSnapshot();
+            snapshot.setUser(user);
+            snapshot.setSnapshotDate(month.plusMonths(1).atDay(1));
+            snapshot.setBalance(balance);
+            snapshot.setCreatedAt(now);
+            balanceSnapshotRepository.save(snapshot);
+            created++;
+        }
+        return created;
+    }
+
+    public List<BalanceSnapshot> getSnapshots(User user) {
+        return balanceSnapshotRepository.findByUserOrderBySnapshotDateAsc(user);
+    }
+
+    // Nightly so that snapshots dropped by back-dated writes are rebuilt, not only at month start
+    @Scheduled(cron = "${balance.snapshots.cron:0 15 4 * * *}")
+    public void buildAllSnapshots() {
+        long started = System.currentTimeMillis();
+        int users = 0;
+        int created = 0;
+        long lastId = 0L;
+
+        while (true) {
+            List<Balance> balances = balanceRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(USER_CHUNK_SIZE));
+            if (balances.isEmpty()) {
+                break;
+            }
+            for (Balance balance : balances) {
+                try {
+                    Integer count = userTemplate.execute(status -> buildSnapshots(balance.getUser()));
+                    created += count != null ? count : 0;
+                    users++;
+                } catch (RuntimeException e) {
+                    logger.error("Failed to build balance snapshots for user {}", balance.getUser().getId(), e);
+                }
+            }
+            lastId = balances.get(balances.size() - 1).getId();
+        }
+
+        logger.info("Built {} balance snapshots for {} users in {} ms", created, users, System.currentTimeMillis() - started);
+    }
+}
@@ -0,0 +1,178 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.BudgetAlert;
+import com.jfallon.finance_app.event.BudgetAlertEvent;
+import com.jfallon.finance_app.event.LedgerChangedEvent;
+import com.jfallon.finance_app.model.Budget;
+import com.jfallon.finance_app.model.MonthlyCategoryTotal;
+import com.jfallon.finance_app.repository.BudgetRepository;
+import com.jfallon.finance_app.repository.FiredBudgetAlertRepository;
+import com.jfallon.finance_app.repository.MonthlyCategoryTotalRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Checks budget thresholds after each committed expense write, off the request thread
+@Service
+public class BudgetAlertService {
+    private static final Logger logger = LoggerFactory.getLogger(BudgetAlertService.class);
+    private static final int[] THRESHOLDS = {80, 100};
+
+    private final BudgetRepository budgetRepository;
+    private final CategoryService categoryService;
+    private final MonthlyCategoryTotalRepository monthlyCategoryTotalRepository;
+    private final FiredBudgetAlertRepository firedBudgetAlertRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<LedgerChangedEvent> queue;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private Thread worker;
+
+    public BudgetAlertService(
+            BudgetRepository budgetRepository,
+            CategoryService categoryService,
+            MonthlyCategoryTotalRepository monthlyCategoryTotalRepository,
+            FiredBudgetAlertRepository firedBudgetAlertRepository,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${budget.alerts.queue-capacity:10000}") int queueCapacity) {
+        this.budgetRepository = budgetRepository;
+        this.categoryService = categoryService;
+        this.monthlyCategoryTotalRepository = monthlyCategoryTotalRepository;
+        this.firedBudgetAlertRepository = firedBudgetAlertRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::drain, "budget-alerts");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.interrupt();
+    }
+
+    // Never blocks the writer: when the queue is full the change is dropped and counted
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        if (event.months("EXPENSE").isEmpty()) {
+            return;
+        }
+        if (!queue.offer(event)) {
+            long count = dropped.incrementAndGet();
+            logger.warn("Budget alert queue full, dropped change for user {} ({} dropped so far)", event.userId(), count);
+        }
+    }
+
+    public List<BudgetAlert> getRecentAlerts(Long userId) {
+        return firedBudgetAlertRepository.findTop20ByUser_IdOrderByTriggeredAtDesc(userId).stream()
+                .map(fired -> new BudgetAlert(userId, fired.getMonth().toString(), fired.getCategory(),
+                        fired.getThresholdPercent(), fired.getBudget(), fired.getSpent(), fired.getTriggeredAt()))
+                .collect(Collectors.toList());
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                evaluate(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.error("Failed to evaluate budget alerts", e);
+            }
+        }
+    }
+
+    private void evaluate(LedgerChangedEvent event) {
+        for (LedgerChangedEvent.Change change : event.changes()) {
+            if (!"EXPENSE".equals(change.type())) {
+                continue;
+            }
+            CategoryService.Entry category = categoryService.find(event.userId(), change.category());
+            if (category == null) {
+                continue;
+            }
+            List<Budget> budgets = budgetRepository.findByUser_IdAndBudgetMonthAndCategoryId(
+                    event.userId(), change.month(), category.id());
+            if (budgets.isEmpty()) {
+                continue;
+            }
+            BigDecimal budget = budgets.stream()
+                    .map(Budget::getAmount)
+                    .filter(Objects::nonNull)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            if (budget.signum() <= 0) {
+                continue;
+            }
+
+            // The rollup row is the running spend counter for this bucket; no history is re-read
+            BigDecimal spent = monthlyCategoryTotalRepository
+                    .findByUser_IdAndMonthAndCategoryAndType(event.userId(), change.month(), change.category(), "EXPENSE")
+                    .map(MonthlyCategoryTotal::getTotal)
+                    .orElse(BigDecimal.ZERO);
+            check(event.userId(), change.month(), change.category(), budget, spent);
+        }
+    }
+
+    // The fired thresholds are kept in fired_budget_alerts, so only the first write past a threshold alerts, even
+    // across restarts; dropping back below a threshold removes its row so it can fire again
+    private void check(Long userId, YearMonth month, String category, BigDecimal budget, BigDecimal spent) {
+        int percent = spent.multiply(BigDecimal.valueOf(100)).divide(budget, 0, RoundingMode.FLOOR).intValue();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<BudgetAlert> fired = transactionTemplate.execute(status -> {
+            firedBudgetAlertRepository.deleteAbove(userId, month.atDay(1), category, percent);
+            List<BudgetAlert> alerts = new ArrayList<>();
+            for (int threshold : THRESHOLDS) {
+                if (percent >= threshold && firedBudgetAlertRepository.insertIfAbsent(
+                        userId, month.atDay(1), category, threshold, budget, spent, now) > 0) {
+                    alerts.add(new BudgetAlert(userId, month.toString(), category, threshold, budget, spent, now));
+                }
+            }
+            return alerts;
+        });
+
+        for (BudgetAlert alert : fired) {
+            eventPublisher.publishEvent(new BudgetAlertEvent(alert));
+            logger.info("User {} reached {}% of the {} budget for {}", userId, alert.getThresholdPercent(), category, month);
+        }
+    }
+
+    // Only the current and previous month keep threshold state; a back-dated write to an older month may alert again
+    @Scheduled(cron = "0 0 5 * * *")
+    public void pruneFiredAlerts() {
+        transactionTemplate.executeWithoutResult(status ->
+                firedBudgetAlertRepository.deleteBefore(YearMonth.now().minusMonths(1).atDay(1)));
+    }
+}
@@ -0,0 +1,170 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.BudgetRollover;
+import com.jfallon.finance_app.event.LedgerChangedEvent;
+import com.jfallon.finance_app.model.Budget;
+import com.jfallon.finance_app.model.BudgetCarryover;
+import com.jfallon.finance_app.model.MonthlyCategoryTotal;
+import com.jfallon.finance_app.repository.BudgetCarryoverRepository;
+import com.jfallon.finance_app.repository.BudgetRepository;
+import com.jfallon.finance_app.userauth.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Envelope-style rollover: each month of a budgeted category starts with whatever the months before it left over.
+// Chains are stored per (user, category, month) and extended lazily on read; a change to an earlier month's budget
+// or spend shifts only the rows after it instead of replaying the chain.
+@Service
+@RequiredArgsConstructor
+public class BudgetCarryoverService {
+    private static final int LOCK_NAMESPACE = 0x4243;
+
+    private final BudgetCarryoverRepository budgetCarryoverRepository;
+    private final BudgetRepository budgetRepository;
+    private final MonthlyCategoryTotalService monthlyCategoryTotalService;
+    private final CategoryService categoryService;
+
+    @Transactional
+    public List<BudgetRollover> getRollover(User user, YearMonth month) {
+        budgetCarryoverRepository.lockForUser(LOCK_NAMESPACE, user.getId());
+
+        Map<Integer, NavigableMap<YearMonth, BigDecimal>> budgets = new HashMap<>();
+        Map<Integer, String> names = new HashMap<>();
+        for (Budget budget : budgetRepository.findByUser(user)) {
+            if (budget.getCategoryId() == null || budget.getBudgetMonth() == null || budget.getAmount() == null) {
+                continue;
+            }
+            budgets.computeIfAbsent(budget.getCategoryId(), id -> new TreeMap<>())
+                    .merge(budget.getBudgetMonth(), budget.getAmount(), BigDecimal::add);
+            names.put(budget.getCategoryId(), budget.getCategory());
+        }
+
+        Map<Integer, BudgetCarryover> latest = budgetCarryoverRepository.findLatestPerCategory(user.getId(), month).stream()
+                .collect(Collectors.toMap(BudgetCarryover::getCategoryId, Function.identity()));
+
+        // Where each chain that has started by this month has to be extended from
+        List<BudgetCarryover> created = new ArrayList<>();
+        Map<Integer, BudgetCarryover> starts = new HashMap<>();
+        YearMonth earliest = month;
+        for (Map.Entry<Integer, NavigableMap<YearMonth, BigDecimal>> entry : budgets.entrySet()) {
+            YearMonth first = entry.getValue().firstKey();
+            if (first.isAfter(month)) {
+                continue;
+            }
+            BudgetCarryover start = latest.get(entry.getKey());
+            if (start == null) {
+                start = row(user, entry.getKey(), first, BigDecimal.ZERO);
+                created.add(start);
+            }
+            starts.put(entry.getKey(), start);
+            earliest = start.getMonth().isBefore(earliest) ? start.getMonth() : earliest;
+        }
+
+        Map<Integer, Map<YearMonth, BigDecimal>> spent = new HashMap<>();
+        for (MonthlyCategoryTotal total : monthlyCategoryTotalService.getTotalsBetween(user, "EXPENSE", earliest, month)) {
+            CategoryService.Entry category = categoryService.find(user.getId(), total.getCategory());
+            if (category != null && starts.containsKey(category.id())) {
+                spent.computeIfAbsent(category.id(), id -> new HashMap<>()).put(total.getMonth(), total.getTotal());
+            }
+        }
+
+        List<BudgetRollover> rollover = new ArrayList<>();
+        for (Map.Entry<Integer, BudgetCarryover> entry : starts.entrySet()) {
+            Integer categoryId = entry.getKey();
+            Map<YearMonth, BigDecimal> budgeted = budgets.get(categoryId);
+            Map<YearMonth, BigDecimal> categorySpent = spent.getOrDefault(categoryId, Map.of());
+
+            BigDecimal carry = entry.getValue().getCarriedIn();
+            for (YearMonth m = entry.getValue().getMonth(); m.isBefore(month); m = m.plusMonths(1)) {
+                carry = carry.add(budgeted.getOrDefault(m, BigDecimal.ZERO)).subtract(categorySpent.getOrDefault(m, BigDecimal.ZERO));
+                created.add(row(user, categoryId, m.plusMonths(1), carry));
+            }
+
+            BudgetRollover line = new BudgetRollover();
+            line.setCategory(names.get(categoryId));
+            line.setCarriedIn(carry);
+            line.setBudget(budgeted.getOrDefault(month, BigDecimal.ZERO));
+            line.setSpent(categorySpent.getOrDefault(month, BigDecimal.ZERO));
+            line.setAvailable(carry.add(line.getBudget()).subtract(line.getSpent()));
+            rollover.add(line);
+        }
+
+        budgetCarryoverRepository.saveAll(created);
+        rollover.sort(Comparator.comparing(BudgetRollover::getCategory, Comparator.nullsLast(String::compareToIgnoreCase)));
+        return rollover;
+    }
+
+    // Called by BudgetService inside the budget write's transaction, after the change has been saved
+    @Transactional
+    public void budgetChanged(User user, Integer categoryId, YearMonth month, BigDecimal delta) {
+        if (categoryId == null || month == null || delta == null || delta.signum() == 0) {
+            return;
+        }
+        budgetCarryoverRepository.lockForUser(LOCK_NAMESPACE, user.getId());
+        YearMonth chainStart = budgetCarryoverRepository.findChainStart(user.getId(), categoryId);
+        if (chainStart == null) {
+            return;
+        }
+
+        // If the first budgeted month moved, the chain starts somewhere else; drop it and let the next read rebuild it
+        YearMonth firstBudgeted = budgetRepository.findByUserAndCategoryId(user, categoryId).stream()
+                .map(Budget::getBudgetMonth)
+                .filter(m -> m != null)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        if (!chainStart.equals(firstBudgeted)) {
+            budgetCarryoverRepository.deleteChain(user.getId(), categoryId);
+            return;
+        }
+        budgetCarryoverRepository.shiftAfter(user.getId(), categoryId, month.atDay(1), delta);
+    }
+
+    // Runs in the ledger write's transaction so the shift commits or rolls back with the spend that caused it.
+    // Without fallbackExecution it never runs outside one, so it needs no @Transactional of its own.
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        boolean locked = false;
+        for (LedgerChangedEvent.Change change : event.changes()) {
+            if (!"EXPENSE".equals(change.type()) || change.amount().signum() == 0) {
+                continue;
+            }
+            CategoryService.Entry category = categoryService.find(event.userId(), change.category());
+            if (category == null) {
+                continue;
+            }
+            if (!locked) {
+                budgetCarryoverRepository.lockForUser(LOCK_NAMESPACE, event.userId());
+                locked = true;
+            }
+            // Spend before the chain starts doesn't carry anywhere, so only shift when the month is inside the chain
+            YearMonth chainStart = budgetCarryoverRepository.findChainStart(event.userId(), category.id());
+            if (chainStart != null && !change.month().isBefore(chainStart)) {
+                budgetCarryoverRepository.shiftAfter(event.userId(), category.id(), change.month().atDay(1), change.amount().negate());
+            }
+        }
+    }
+
+    private BudgetCarryover row(User user, Integer categoryId, YearMonth month, BigDecimal carriedIn) {
+        BudgetCarryover carryover = new BudgetCarryover();
+        carryover.setUser(user);
+        carryover.setCategoryId(categoryId);
+        carryover.setMonth(month);
+        carryover.setCarriedIn(carriedIn);
+        return carryover;
+    }
+}
@@ -1,28 +1,69 @@
 package com.jfallon.finance_app.service;
 
+import com.jfallon.finance_app.dto.BulkItemResult;
+import com.jfallon.finance_app.event.LedgerChangedEvent;
 import com.jfallon.finance_app.model.Budget;
-import com.jfallon.finance_app.model.Expense;
+import com.jfallon.finance_app.model.MonthlyCategoryTotal;
 import com.jfallon.finance_app.repository.BudgetRepository;
 import com.jfallon.finance_app.userauth.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class BudgetService {
+    private static final String SUMMARY_PREFIX = "budget-summary:";
+    private static final int MAX_SUMMARY_MONTHS = 36;
+
     @Autowired
     private BudgetRepository budgetRepository;
 
     @Autowired
-    private ExpenseService expenseService;
+    private MonthlyCategoryTotalService monthlyCategoryTotalService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private BudgetCarryoverService budgetCarryoverService;
+
+    @Autowired
+    private UserSnapshotCache snapshotCache;
+
+    private final BulkOperation<Budget> bulk = new BulkOperation<>("budget", Budget::getId, Budget::getUser, this::validate);
 
+    @Transactional
     public Budget saveBudget(Budget budget) {
-        return budgetRepository.save(budget);
+        // An edit can move a budget to another month, so both the old and the new month are stale
+        BudgetLine previous = null;
+        if (budget.getId() != null) {
+            Budget existing = budgetRepository.findById(budget.getId()).orElse(null);
+            if (existing != null) {
+                evictSummary(existing.getUser(), existing.getBudgetMonth());
+                previous = BudgetLine.of(existing);
+            }
+        }
+        categoryService.assign(budget);
+        Budget saved = budgetRepository.save(budget);
+        evictSummary(saved.getUser(), saved.getBudgetMonth());
+        if (previous != null) {
+            carryRemoved(saved.getUser(), previous);
+        }
+        carryAdded(saved.getUser(), saved);
+        return saved;
     }
 
     public List<Budget> getBudgetsByUser(User user) {
@@ -38,36 +79,201 @@ public class BudgetService {
                 .orElseThrow(() -> new RuntimeException("Budget not found"));
     }
 
-    public void deleteBudget(Long id) {
-        budgetRepository.deleteById(id);
+    @Transactional
+    public void deleteBudget(Budget budget) {
+        budgetRepository.delete(budget);
+        evictSummary(budget.getUser(), budget.getBudgetMonth());
+        carryRemoved(budget.getUser(), BudgetLine.of(budget));
+    }
+
+    @Transactional
+    public List<BulkItemResult> createBudgets(User user, List<Budget> budgets) {
+        return bulk.create(budgets, valid -> {
+            valid.forEach(budget -> {
+                budget.setId(null);
+                budget.setUser(user);
+                categoryService.assign(budget);
+            });
+            List<Budget> saved = budgetRepository.saveAll(valid);
+            saved.forEach(budget -> {
+                evictSummary(user, budget.getBudgetMonth());
+                carryAdded(user, budget);
+            });
+            return saved;
+        });
+    }
+
+    @Transactional
+    public List<BulkItemResult> updateBudgets(User user, List<Budget> updates) {
+        List<BudgetLine> previous = new ArrayList<>();
+        return bulk.update(user, updates, budgetRepository::findAllById, (budget, update) -> {
+            evictSummary(user, budget.getBudgetMonth());
+            previous.add(BudgetLine.of(budget));
+            budget.setCategory(update.getCategory());
+            budget.setAmount(update.getAmount());
+            budget.setBudgetMonth(update.getBudgetMonth());
+            categoryService.assign(budget);
+            evictSummary(user, budget.getBudgetMonth());
+        }, changed -> {
+            budgetRepository.saveAll(changed);
+            previous.forEach(line -> carryRemoved(user, line));
+            changed.forEach(budget -> carryAdded(user, budget));
+        });
     }
 
+    @Transactional
+    public List<BulkItemResult> deleteBudgets(User user, List<Long> ids) {
+        return bulk.delete(user, ids, budgetRepository::findAllById, deletable -> {
+            budgetRepository.deleteAllByIdInBatch(deletable.stream().map(Budget::getId).collect(Collectors.toSet()));
+            deletable.forEach(budget -> {
+                evictSummary(user, budget.getBudgetMonth());
+                carryRemoved(user, BudgetLine.of(budget));
+            });
+        });
+    }
+
+    private String validate(Budget budget) {
+        if (budget.getCategory() == null || budget.getCategory().isBlank()) {
+            return "category is required";
+        }
+        if (budget.getAmount() == null || budget.getAmount().signum() <= 0) {
+            return "amount must be positive";
+        }
+        if (budget.getBudgetMonth() == null) {
+            return "budgetMonth is required";
+        }
+        return null;
+    }
+
+    @Transactional(readOnly = true)
     public Map<String, Object> getBudgetSummary(User user, YearMonth month) {
-        List<Budget> budgets = getBudgetsByUserAndMonth(user, month);
-        List<Expense> expenses = expenseService.getExpensesByUser(user);
+        Map<String, Object> cached = cachedSummary(user, month);
+        if (cached != null) {
+            return cached;
+        }
+        return getBudgetSummaries(user, month, month).get(month);
+    }
 
+    // Budget vs. actual for every month in the range from one budgets query and one rollup range query
+    @Transactional(readOnly = true)
+    public Map<YearMonth, Map<String, Object>> getBudgetSummaries(User user, YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        if (months.size() > MAX_SUMMARY_MONTHS) {
+            throw new IllegalArgumentException("At most " + MAX_SUMMARY_MONTHS + " months can be summarized at once");
+        }
+
+        Map<YearMonth, Map<String, Object>> summaries = new HashMap<>();
+        List<YearMonth> missing = new ArrayList<>();
+        for (YearMonth month : months) {
+            Map<String, Object> cached = cachedSummary(user, month);
+            if (cached != null) {
+                summaries.put(month, cached);
+            } else {
+                missing.add(month);
+            }
+        }
+        if (missing.isEmpty()) {
+            return summaries;
+        }
+
+        // Taken before reading, so a write that commits while this runs keeps its stale results out of the cache
+        long generation = snapshotCache.generation(user.getId());
+        YearMonth first = missing.get(0);
+        YearMonth last = missing.get(missing.size() - 1);
+        Map<YearMonth, Map<String, BigDecimal>> spentByMonth = new HashMap<>();
+        for (MonthlyCategoryTotal total : monthlyCategoryTotalService.getTotalsBetween(user, "EXPENSE", first, last)) {
+            spentByMonth.computeIfAbsent(total.getMonth(), m -> new HashMap<>()).put(total.getCategory(), total.getTotal());
+        }
+        Map<YearMonth, List<Budget>> budgetsByMonth = new HashMap<>();
+        for (Budget budget : budgetRepository.findByUserAndBudgetMonthIn(user, missing)) {
+            budgetsByMonth.computeIfAbsent(budget.getBudgetMonth(), m -> new ArrayList<>()).add(budget);
+        }
+
+        for (YearMonth month : missing) {
+            Map<String, Object> summary = buildSummary(
+                    budgetsByMonth.getOrDefault(month, List.of()), spentByMonth.getOrDefault(month, Map.of()));
+            snapshotCache.putIfCurrent(user.getId(), summaryName(month), summary, generation);
+            summaries.put(month, summary);
+        }
+        return summaries;
+    }
+
+    // Only the months the write actually touched are dropped; budgets only track expenses
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        List<String> names = event.months("EXPENSE").stream().map(BudgetService::summaryName).toList();
+        if (!names.isEmpty()) {
+            snapshotCache.invalidate(event.userId(), names);
+        }
+    }
+
+    private Map<String, Object> buildSummary(List<Budget> budgets, Map<String, BigDecimal> monthTotals) {
         Map<String, Object> summary = new HashMap<>();
         Map<String, BigDecimal> budgetByCategory = new HashMap<>();
         Map<String, BigDecimal> spentByCategory = new HashMap<>();
 
-        // Initialize budget amounts
+        // Budget amounts and the month's spend per budgeted category
         for (Budget budget : budgets) {
             budgetByCategory.put(budget.getCategory(), budget.getAmount());
-            spentByCategory.put(budget.getCategory(), BigDecimal.ZERO);
+            spentByCategory.put(budget.getCategory(), monthTotals.getOrDefault(budget.getCategory(), BigDecimal.ZERO));
         }
 
-        // Calculate spent amounts
-        for (Expense expense : expenses) {
-            String category = expense.getCategory();
-            if (spentByCategory.containsKey(category)) {
-                BigDecimal currentAmount = spentByCategory.get(category);
-                spentByCategory.put(category, currentAmount.add(expense.getAmount()));
-            }
+        // Cached and shared between requests, so nobody may change it
+        summary.put("budgets", Collections.unmodifiableMap(budgetByCategory));
+        summary.put("spent", Collections.unmodifiableMap(spentByCategory));
+
+        return Collections.unmodifiableMap(summary);
+    }
+
+    // Rollover chains are keyed by category and month, so an edit is the removal of the old line plus the new one
+    private void carryRemoved(User user, BudgetLine line) {
+        if (line.amount() != null) {
+            budgetCarryoverService.budgetChanged(user, line.categoryId(), line.month(), line.amount().negate());
+        }
+    }
+
+    private void carryAdded(User user, Budget budget) {
+        budgetCarryoverService.budgetChanged(user, budget.getCategoryId(), budget.getBudgetMonth(), budget.getAmount());
+    }
+
+    private record BudgetLine(Integer categoryId, YearMonth month, BigDecimal amount) {
+        static BudgetLine of(Budget budget) {
+            return new BudgetLine(budget.getCategoryId(), budget.getBudgetMonth(), budget.getAmount());
         }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> cachedSummary(User user, YearMonth month) {
+        return (Map<String, Object>) snapshotCache.getIfPresent(user.getId(), summaryName(month));
+    }
 
-        summary.put("budgets", budgetByCategory);
-        summary.put("spent", spentByCategory);
+    // Dropped once the write has committed; evicting earlier would let a concurrent read cache the old rows again.
+    // A summary loaded from the old rows in the meantime is refused by the snapshot cache's generation check.
+    private void evictSummary(User user, YearMonth month) {
+        if (user == null || month == null) {
+            return;
+        }
+        Long userId = user.getId();
+        List<String> names = List.of(summaryName(month));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            snapshotCache.invalidate(userId, names);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                snapshotCache.invalidate(userId, names);
+            }
+        });
+    }
 
-        return summary;
+    private static String summaryName(YearMonth month) {
+        return SUMMARY_PREFIX + month;
     }
 }
@@ -0,0 +1,141 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.BulkItemResult;
+import com.jfallon.finance_app.userauth.model.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Per-item bookkeeping shared by the bulk endpoints: every item is looked up, ownership-checked and validated on its
+// own and reported at its position in the request, and only the items that passed reach the caller's batched write
+public class BulkOperation<T> {
+    private final String name;
+    private final Function<T, Long> id;
+    private final Function<T, User> owner;
+    private final Function<T, String> validator;
+
+    public BulkOperation(String name, Function<T, Long> id, Function<T, User> owner, Function<T, String> validator) {
+        this.name = name;
+        this.id = id;
+        this.owner = owner;
+        this.validator = validator;
+    }
+
+    // save gets the valid items in request order and returns them saved, in the same order
+    public List<BulkItemResult> create(List<T> items, Function<List<T>, List<T>> save) {
+        List<BulkItemResult> results = new ArrayList<>();
+        List<T> valid = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            String error = validate(items.get(i));
+            if (error != null) {
+                results.add(BulkItemResult.error(i, null, error));
+                continue;
+            }
+            valid.add(items.get(i));
+            positions.add(i);
+        }
+
+        List<T> saved = save.apply(valid);
+        for (int i = 0; i < saved.size(); i++) {
+            results.add(BulkItemResult.ok(positions.get(i), id.apply(saved.get(i)), "created"));
+        }
+        results.sort(Comparator.comparingInt(BulkItemResult::getIndex));
+        return results;
+    }
+
+    // apply copies an update onto its stored entity; save gets every changed entity once the whole request is checked.
+    // An id may appear once, since a second update would overwrite the first on the same entity
+    public List<BulkItemResult> update(User user, List<T> updates, Function<Set<Long>, List<T>> findAllById,
+                                       BiConsumer<T, T> apply, Consumer<List<T>> save) {
+        List<BulkItemResult> results = new ArrayList<>();
+        Map<Long, T> existing = load(updates.stream().filter(Objects::nonNull).map(id).collect(Collectors.toList()), findAllById);
+
+        List<T> changed = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < updates.size(); i++) {
+            T update = updates.get(i);
+            Long updateId = update == null ? null : id.apply(update);
+            T entity = updateId == null ? null : existing.get(updateId);
+            String error = check(user, entity, "update");
+            if (error == null) {
+                error = validate(update);
+            }
+            if (error == null && !seen.add(updateId)) {
+                error = "Duplicate id in request";
+            }
+            if (error != null) {
+                results.add(BulkItemResult.error(i, updateId, error));
+                continue;
+            }
+
+            apply.accept(entity, update);
+            changed.add(entity);
+            results.add(BulkItemResult.ok(i, updateId, "updated"));
+        }
+
+        save.accept(changed);
+        return results;
+    }
+
+    // delete is only called when at least one item passed
+    public List<BulkItemResult> delete(User user, List<Long> ids, Function<Set<Long>, List<T>> findAllById,
+                                       Consumer<List<T>> delete) {
+        List<BulkItemResult> results = new ArrayList<>();
+        Map<Long, T> existing = load(ids, findAllById);
+
+        Map<Long, T> deletable = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            T entity = ids.get(i) == null ? null : existing.get(ids.get(i));
+            String error = check(user, entity, "delete");
+            if (error != null) {
+                results.add(BulkItemResult.error(i, ids.get(i), error));
+                continue;
+            }
+            deletable.putIfAbsent(ids.get(i), entity);
+            results.add(BulkItemResult.ok(i, ids.get(i), "deleted"));
+        }
+
+        if (!deletable.isEmpty()) {
+            delete.accept(new ArrayList<>(deletable.values()));
+        }
+        return results;
+    }
+
+    private Map<Long, T> load(List<Long> ids, Function<Set<Long>, List<T>> findAllById) {
+        Set<Long> wanted = ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (wanted.isEmpty()) {
+            return Map.of();
+        }
+        return findAllById.apply(wanted).stream().collect(Collectors.toMap(id, entity -> entity));
+    }
+
+    private String check(User user, T entity, String action) {
+        if (entity == null) {
+            return capitalized() + " not found";
+        }
+        if (!owner.apply(entity).getId().equals(user.getId())) {
+            return "Not authorized to " + action + " this " + name;
+        }
+        return null;
+    }
+
+    private String validate(T item) {
+        return item == null ? capitalized() + " is required" : validator.apply(item);
+    }
+
+    private String capitalized() {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,163 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.model.Budget;
+import com.jfallon.finance_app.model.Category;
+import com.jfallon.finance_app.model.Expense;
+import com.jfallon.finance_app.model.Transaction;
+import com.jfallon.finance_app.repository.CategoryRepository;
+import com.jfallon.finance_app.userauth.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Interns expense category names into the per-user dictionary so every write stores a small integer key.
+// Lookups are served from an in-memory map per user. A miss inserts the name in the caller's transaction, so the
+// category commits or rolls back with the row that uses it, and only reaches the map once that has committed.
+// Income types are free text on the ledger row and never enter the dictionary.
+@Service
+public class CategoryService {
+    public record Entry(Integer id, String name) {
+    }
+
+    private final CategoryRepository categoryRepository;
+    private final Map<Long, Map<String, Entry>> byUser;
+
+    public CategoryService(
+            CategoryRepository categoryRepository,
+            @Value("${categories.cache.max-users:10000}") int maxUsers) {
+        this.categoryRepository = categoryRepository;
+        // Least recently used users fall out first; their dictionary is reloaded with one query on next use
+        this.byUser = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<String, Entry>> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    // Returns null for a blank name; otherwise the id and the canonical spelling, creating the category if needed
+    public Entry intern(Long userId, String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        String trimmed = name.trim();
+        Map<String, Entry> names = namesFor(userId);
+        Entry entry = names.get(key(trimmed));
+        if (entry == null) {
+            // Racing inserts of the same name resolve to the same row, so a duplicate put is harmless
+            entry = insert(userId, trimmed);
+            remember(names, key(trimmed), entry);
+        }
+        return entry;
+    }
+
+    // Lookup only; an unknown name returns null instead of creating a category
+    public Entry find(Long userId, String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        String trimmed = name.trim();
+        Map<String, Entry> names = namesFor(userId);
+        Entry entry = names.get(key(trimmed));
+        if (entry == null) {
+            entry = categoryRepository.findByUserIdAndName(userId, trimmed).map(this::toEntry).orElse(null);
+            if (entry != null) {
+                names.put(key(trimmed), entry);
+            }
+        }
+        return entry;
+    }
+
+    public Set<Integer> findIds(Long userId, Collection<String> names) {
+        return names.stream()
+                .map(name -> find(userId, name))
+                .filter(Objects::nonNull)
+                .map(Entry::id)
+                .collect(Collectors.toSet());
+    }
+
+    public List<Category> getCategories(User user) {
+        return categoryRepository.findByUser_IdOrderByNameAsc(user.getId());
+    }
+
+    public void assign(Expense expense) {
+        Entry entry = intern(expense.getUser().getId(), expense.getCategory());
+        expense.setCategoryId(entry == null ? null : entry.id());
+        expense.setCategory(entry == null ? null : entry.name());
+    }
+
+    public void assign(Budget budget) {
+        Entry entry = intern(budget.getUser().getId(), budget.getCategory());
+        budget.setCategoryId(entry == null ? null : entry.id());
+        budget.setCategory(entry == null ? null : entry.name());
+    }
+
+    // Only expense rows share the dictionary with expenses and budgets; other types keep their text on the row
+    public void assign(Transaction transaction) {
+        if (!"EXPENSE".equals(transaction.getType())) {
+            String label = transaction.getCategory() == null || transaction.getCategory().isBlank()
+                    ? null : transaction.getCategory().trim();
+            transaction.setCategoryId(null);
+            transaction.setCategoryLabel(label);
+            transaction.setCategory(label);
+            return;
+        }
+        Entry entry = intern(transaction.getUser().getId(), transaction.getCategory());
+        transaction.setCategoryId(entry == null ? null : entry.id());
+        transaction.setCategoryLabel(null);
+        transaction.setCategory(entry == null ? null : entry.name());
+    }
+
+    private Map<String, Entry> namesFor(Long userId) {
+        Map<String, Entry> names = byUser.get(userId);
+        if (names == null) {
+            Map<String, Entry> loaded = new ConcurrentHashMap<>();
+            for (Category category : categoryRepository.findByUser_IdOrderByNameAsc(userId)) {
+                loaded.put(key(category.getName()), toEntry(category));
+            }
+            Map<String, Entry> raced = byUser.putIfAbsent(userId, loaded);
+            names = raced != null ? raced : loaded;
+        }
+        return names;
+    }
+
+    // A concurrent insert of the same name blocks on the unique index until that writer commits or rolls back
+    private Entry insert(Long userId, String name) {
+        categoryRepository.insertIfAbsent(userId, name);
+        return categoryRepository.findByUserIdAndName(userId, name).map(this::toEntry).orElseThrow();
+    }
+
+    // A row inserted by the current transaction may still roll back, so it is only cached after commit
+    private void remember(Map<String, Entry> names, String key, Entry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            names.put(key, entry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                names.put(key, entry);
+            }
+        });
+    }
+
+    private Entry toEntry(Category category) {
+        return new Entry(category.getId(), category.getName());
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
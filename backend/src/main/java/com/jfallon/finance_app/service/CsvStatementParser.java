@@ -0,0 +1,251 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.StatementRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads a headered CSV statement one record at a time. Recognised columns (case-insensitive):
+// date, amount, description|memo|name|payee, category, type. Amount is signed unless a type column is present.
+// Records are bounded: an over-long field fails its row, and a record that never ends (an unclosed quote) fails
+// and stops the parse, since no later record boundary can be trusted.
+public class CsvStatementParser implements StatementParser {
+    private static final int MAX_FIELD_LENGTH = 4 * 1024;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("M/d/yyyy"),
+            DateTimeFormatter.ofPattern("d.M.yyyy")
+    );
+
+    private final BufferedReader reader;
+    private long lineNumber;
+    private long recordLine; // first physical line of the current record
+    private Map<String, Integer> columns;
+    private String fieldError; // set when a field of the current record was cut off
+    private boolean stopped;
+
+    public CsvStatementParser(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public StatementRow next() throws IOException {
+        if (columns == null) {
+            readHeader();
+        }
+
+        if (stopped) {
+            return null;
+        }
+
+        List<String> fields;
+        try {
+            do {
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+        } catch (IllegalArgumentException e) {
+            stopped = true;
+            return StatementRow.failed(recordLine, e.getMessage());
+        }
+        if (fieldError != null) {
+            return StatementRow.failed(recordLine, fieldError);
+        }
+
+        try {
+            return toRow(fields);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return StatementRow.failed(recordLine, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("Statement is empty");
+        }
+        columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase().replace("\uFEFF", "");
+            switch (name) {
+                case "memo", "name", "payee" -> columns.putIfAbsent("description", i);
+                default -> columns.putIfAbsent(name, i);
+            }
+        }
+        if (!columns.containsKey("date") || !columns.containsKey("amount")) {
+            throw new IllegalArgumentException("CSV statement needs at least 'date' and 'amount' columns");
+        }
+    }
+
+    private StatementRow toRow(List<String> fields) {
+        StatementRow row = new StatementRow();
+        row.setLineNumber(recordLine);
+        row.setDate(parseDate(field(fields, "date")));
+
+        String rawAmount = field(fields, "amount");
+        if (rawAmount == null) {
+            throw new IllegalArgumentException("Missing amount");
+        }
+        BigDecimal amount = parseAmount(rawAmount);
+
+        String type = field(fields, "type");
+        if (type != null) {
+            type = type.toUpperCase();
+            if (!"EXPENSE".equals(type) && !"INCOME".equals(type)) {
+                throw new IllegalArgumentException("Unknown type: " + type);
+            }
+            amount = "EXPENSE".equals(type) ? amount.abs().negate() : amount.abs();
+        } else {
+            type = amount.signum() < 0 ? "EXPENSE" : "INCOME";
+        }
+        if (amount.signum() == 0) {
+            throw new IllegalArgumentException("Amount is zero");
+        }
+
+        row.setAmount(amount);
+        row.setType(type);
+        row.setCategory(field(fields, "category"));
+        row.setDescription(field(fields, "description"));
+        return row;
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Accepts either decimal separator: with both present the last one is the decimal point, and repeated ones are
+    // grouping. A lone separator with 1-3 digits before and exactly three after ("1,250" or "1.250") could be either,
+    // so the row is rejected instead of guessing and importing an amount a thousand times off.
+    private BigDecimal parseAmount(String raw) {
+        String value = raw.replace("$", "").replace("\u20AC", "").replace("\u00A3", "").replace(" ", "");
+        int lastComma = value.lastIndexOf(',');
+        int lastDot = value.lastIndexOf('.');
+        if (lastComma >= 0 && lastDot >= 0) {
+            value = lastComma > lastDot
+                    ? value.replace(".", "").replace(',', '.')
+                    : value.replace(",", "");
+        } else if (lastComma >= 0 || lastDot >= 0) {
+            char separator = lastComma >= 0 ? ',' : '.';
+            int last = Math.max(lastComma, lastDot);
+            String integerPart = value.substring(0, last).replace("-", "").replace("+", "");
+            if (value.indexOf(separator) != last) {
+                value = value.replace(String.valueOf(separator), "");
+            } else if (value.length() - last - 1 == 3 && integerPart.length() <= 3 && !integerPart.matches("0*")) {
+                throw new IllegalArgumentException("Ambiguous amount: " + raw + " (decimal or thousands separator?)");
+            } else {
+                value = value.replace(separator, '.');
+            }
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + raw);
+        }
+    }
+
+    private LocalDateTime parseDate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing date");
+        }
+        if (value.length() > 10 && value.charAt(10) == 'T') {
+            return LocalDateTime.parse(value);
+        }
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, format).atStartOfDay();
+            } catch (DateTimeParseException ignored) {
+                // try the next format
+            }
+        }
+        throw new IllegalArgumentException("Unrecognised date: " + value);
+    }
+
+    // RFC 4180 record: quoted fields may contain commas, doubled quotes and line breaks
+    private List<String> readRecord() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        lineNumber++;
+        recordLine = lineNumber;
+        fieldError = null;
+        int recordLength = line.length();
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                String continuation = reader.readLine();
+                if (continuation == null) {
+                    break;
+                }
+                lineNumber++;
+                recordLength += continuation.length() + 1;
+                if (recordLength > MAX_RECORD_LENGTH) {
+                    throw new IllegalArgumentException("Record is longer than " + MAX_RECORD_LENGTH
+                            + " characters; is a quote left open?");
+                }
+                append(current, '\n');
+                line = continuation;
+                i = 0;
+                continue;
+            }
+
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+                    append(current, '"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    append(current, c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                append(current, c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private void append(StringBuilder field, char c) {
+        if (field.length() < MAX_FIELD_LENGTH) {
+            field.append(c);
+        } else if (fieldError == null) {
+            fieldError = "Field is longer than " + MAX_FIELD_LENGTH + " characters";
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.Granularity;
+import com.jfallon.finance_app.dto.PortfolioDTO;
+import com.jfallon.finance_app.event.LedgerChangedEvent;
+import com.jfallon.finance_app.event.UserDataChangedEvent;
+import com.jfallon.finance_app.model.Balance;
+import com.jfallon.finance_app.model.Transaction;
+import com.jfallon.finance_app.userauth.model.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Builds every dashboard section for one user. The summary runs the sections concurrently on a small shared pool,
+// each against its own deadline, and returns whatever finished in time with the rest listed as unavailable.
+// Sections are kept in the per-user snapshot cache until a write event for that user touches them.
+@Service
+public class DashboardService {
+    private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    private static final String BALANCE = "balance";
+    private static final String INCOME = "income";
+    private static final String EXPENSES = "expenses";
+    private static final String PORTFOLIO = "portfolio";
+    private static final String TRANSACTIONS = "transactions";
+    // Snapshot names that read the ledger; BalanceController's balance-series and transactions entries share these prefixes
+    private static final List<String> LEDGER_SECTIONS = List.of(BALANCE, EXPENSES, TRANSACTIONS);
+
+    private final BalanceService balanceService;
+    private final IncomeService incomeService;
+    private final ExpenseService expenseService;
+    private final TransactionService transactionService;
+    private final PortfolioService portfolioService;
+    private final UserSnapshotCache snapshotCache;
+    private final ThreadPoolExecutor executor;
+    private final long sectionTimeoutMillis;
+    private final long portfolioTimeoutMillis;
+    private final long portfolioTtlMillis;
+
+    public DashboardService(
+            BalanceService balanceService,
+            IncomeService incomeService,
+            ExpenseService expenseService,
+            TransactionService transactionService,
+            PortfolioService portfolioService,
+            UserSnapshotCache snapshotCache,
+            @Value("${dashboard.parallelism:4}") int parallelism,
+            @Value("${dashboard.queue-capacity:200}") int queueCapacity,
+            @Value("${dashboard.section-timeout-ms:2000}") long sectionTimeoutMillis,
+            @Value("${dashboard.portfolio-timeout-ms:3000}") long portfolioTimeoutMillis,
+            @Value("${dashboard.cache.portfolio-ttl-seconds:60}") long portfolioTtlSeconds) {
+        this.balanceService = balanceService;
+        this.incomeService = incomeService;
+        this.expenseService = expenseService;
+        this.transactionService = transactionService;
+        this.portfolioService = portfolioService;
+        this.snapshotCache = snapshotCache;
+        this.sectionTimeoutMillis = sectionTimeoutMillis;
+        this.portfolioTimeoutMillis = portfolioTimeoutMillis;
+        this.portfolioTtlMillis = TimeUnit.SECONDS.toMillis(portfolioTtlSeconds);
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> getSummary(User user) {
+        long started = System.nanoTime();
+        Map<String, Future<Object>> sections = new LinkedHashMap<>();
+        Map<String, String> unavailable = new HashMap<>();
+
+        Map<String, Object> response = new HashMap<>();
+        Long userId = user.getId();
+        submit(response, sections, unavailable, userId, BALANCE,
+                () -> snapshotCache.load(userId, BALANCE, () -> loadBalance(user)));
+        submit(response, sections, unavailable, userId, INCOME,
+                () -> snapshotCache.load(userId, INCOME, () -> loadIncome(user)));
+        String expensesKey = expensesKey(6, Granularity.MONTH, null);
+        submit(response, sections, unavailable, userId, expensesKey,
+                () -> snapshotCache.load(userId, expensesKey, () -> loadExpenses(user, 6, Granularity.MONTH, null)));
+        submit(response, sections, unavailable, userId, PORTFOLIO,
+                () -> snapshotCache.load(userId, PORTFOLIO, portfolioTtlMillis, () -> loadPortfolio(user)));
+        submit(response, sections, unavailable, userId, TRANSACTIONS,
+                () -> snapshotCache.load(userId, TRANSACTIONS, () -> loadTransactions(user)));
+
+        for (Map.Entry<String, Future<Object>> section : sections.entrySet()) {
+            String name = section.getKey();
+            Future<Object> future = section.getValue();
+            // Deadlines run from the start of the request, so waiting on one section doesn't extend the others
+            long timeout = PORTFOLIO.equals(name) ? portfolioTimeoutMillis : sectionTimeoutMillis;
+            long remaining = timeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            try {
+                response.put(name, future.get(Math.max(0, remaining), TimeUnit.MILLISECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                unavailable.put(name, "timeout");
+            } catch (ExecutionException e) {
+                logger.warn("Dashboard section {} failed for user {}", name, user.getId(), e.getCause());
+                unavailable.put(name, "error");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                unavailable.put(name, "interrupted");
+            }
+        }
+        response.put("unavailable", unavailable);
+        return response;
+    }
+
+    public Map<String, Object> balance(User user) {
+        return snapshotCache.get(user.getId(), BALANCE, () -> loadBalance(user));
+    }
+
+    public Map<String, Object> income(User user) {
+        return snapshotCache.get(user.getId(), INCOME, () -> loadIncome(user));
+    }
+
+    // A null breakdown start covers the whole history
+    public Map<String, Object> expenses(User user, int months, Granularity granularity, LocalDateTime breakdownFrom) {
+        return snapshotCache.get(user.getId(), expensesKey(months, granularity, breakdownFrom),
+                () -> loadExpenses(user, months, granularity, breakdownFrom));
+    }
+
+    // Prices move without any write, so this section also expires on a short TTL
+    public Map<String, Object> portfolio(User user) {
+        return snapshotCache.get(user.getId(), PORTFOLIO, portfolioTtlMillis, () -> loadPortfolio(user));
+    }
+
+    public Map<String, Object> transactions(User user) {
+        return snapshotCache.get(user.getId(), TRANSACTIONS, () -> loadTransactions(user));
+    }
+
+    // The balance page's longer list, in its own format
+    public List<Map<String, Object>> recentLedger(User user) {
+        return snapshotCache.get(user.getId(), TRANSACTIONS + ":balance-page", () -> loadRecentLedger(user));
+    }
+
+    // Changes once per portfolio TTL; responses that include quotes carry it in their entity tag
+    public long quoteWindow() {
+        return System.currentTimeMillis() / Math.max(1, portfolioTtlMillis);
+    }
+
+    // Also dropped just before commit, so nothing cached from the old data is served under the new data version
+    // while the after-commit listeners are still pending
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void beforeLedgerCommit(LedgerChangedEvent event) {
+        onLedgerChanged(event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        snapshotCache.invalidate(event.userId(), LEDGER_SECTIONS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void beforeUserDataCommit(UserDataChangedEvent event) {
+        onUserDataChanged(event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        String section = switch (event.kind()) {
+            case EXPENSE -> EXPENSES;
+            case INCOME -> INCOME;
+            case PORTFOLIO -> PORTFOLIO;
+            case BALANCE -> BALANCE;
+        };
+        snapshotCache.invalidate(event.userId(), List.of(section));
+    }
+
+    private Map<String, Object> loadBalance(User user) {
+        Balance balance = balanceService.getOrCreateBalance(user);
+        Map<String, Object> section = new HashMap<>();
+        section.put("currentBalance", balance.getCurrentBalance());
+        section.put("lastUpdated", balance.getLastUpdated());
+        section.put("total", balance.getCurrentBalance());
+        return section;
+    }
+
+    private Map<String, Object> loadIncome(User user) {
+        return Map.of("monthly", incomeService.calculateMonthlyIncome(user));
+    }
+
+    private Map<String, Object> loadExpenses(User user, int months, Granularity granularity, LocalDateTime breakdownFrom) {
+        Map<String, Object> section = new HashMap<>();
+        section.put("monthly", expenseService.calculateMonthlyExpenses(user));
+        section.put("breakdown", expenseService.getExpenseBreakdown(user, breakdownFrom));
+        section.put("trend", transactionService.getSpendingTrend(user, Math.max(1, months), granularity));
+        return section;
+    }
+
+    private Map<String, Object> loadPortfolio(User user) {
+        PortfolioDTO portfolio = portfolioService.getPortfolioWithPrices(user);
+        Map<String, Object> section = new HashMap<>();
+        section.put("totalValue", portfolio.getTotalValue() != null ? portfolio.getTotalValue() : BigDecimal.ZERO);
+        section.put("dailyChangePercent", portfolio.getDailyChangePercent() != null ? portfolio.getDailyChangePercent() : BigDecimal.ZERO);
+        return section;
+    }
+
+    private Map<String, Object> loadTransactions(User user) {
+        List<Transaction> recentTransactions = transactionService.getRecentTransactions(user, 5);
+        List<Map<String, Object>> formattedTransactions = recentTransactions.stream()
+                .map(transaction -> {
+                    Map<String, Object> map = new HashMap<>();
+                    map.put("id", transaction.getId());
+                    map.put("type", transaction.getType().toLowerCase());
+                    map.put("description", transaction.getDescription());
+                    map.put("amount", transaction.getAmount());
+                    map.put("date", transaction.getTransactionDate().format(DATE_FORMAT));
+                    return map;
+                })
+                .collect(Collectors.toList());
+        return Map.of("recent", formattedTransactions);
+    }
+
+    private List<Map<String, Object>> loadRecentLedger(User user) {
+        return transactionService.getRecentTransactions(user, 10).stream()
+                .map(transaction -> {
+                    Map<String, Object> map = new HashMap<>();
+                    map.put("id", transaction.getId());
+                    map.put("timestamp", transaction.getTransactionDate());
+                    map.put("type", transaction.getType());
+                    map.put("amount", transaction.getAmount());
+                    map.put("description", transaction.getDescription());
+                    return map;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private String expensesKey(int months, Granularity granularity, LocalDateTime breakdownFrom) {
+        return EXPENSES + ":" + Math.max(1, months) + ":" + granularity + ":" + (breakdownFrom == null ? "all" : breakdownFrom.toLocalDate());
+    }
+
+    // Cached sections are answered on the request thread; only misses go to the pool
+    private void submit(Map<String, Object> response, Map<String, Future<Object>> sections, Map<String, String> unavailable,
+                        Long userId, String key, Callable<Object> section) {
+        String name = key.contains(":") ? key.substring(0, key.indexOf(':')) : key;
+        Object cached = snapshotCache.getIfPresent(userId, key);
+        if (cached != null) {
+            response.put(name, cached);
+            return;
+        }
+        try {
+            sections.put(name, executor.submit(section));
+        } catch (RejectedExecutionException e) {
+            // Queue is full: shed this section rather than block the request thread
+            unavailable.put(name, "busy");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.userauth.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+// Entity tags for polled read endpoints. A tag is the user's data version plus whatever else the response depends on
+// (request parameters, the current date, the quote refresh window), so a matching If-None-Match can be answered
+// with 304 from the balances row alone.
+@Service
+@RequiredArgsConstructor
+public class DataVersionService {
+    // Browsers may keep the response but must revalidate it with If-None-Match on every poll
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final BalanceService balanceService;
+
+    public String tag(User user, Object... qualifiers) {
+        StringBuilder tag = new StringBuilder("W/\"").append(user.getId()).append('-').append(balanceService.getDataVersion(user));
+        for (Object qualifier : qualifiers) {
+            tag.append('-').append(qualifier);
+        }
+        return tag.append('"').toString();
+    }
+
+    // Weak comparison, as If-None-Match requires
+    public static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String opaque = opaque(tag);
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .anyMatch(candidate -> candidate.equals("*") || opaque(candidate).equals(opaque));
+    }
+
+    // Answers 304 when the client already holds this version of the data; otherwise builds the body and tags it
+    public static ResponseEntity<?> conditional(String ifNoneMatch, String etag, Supplier<?> body) {
+        if (matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body.get());
+    }
+
+    public static ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -1,10 +1,18 @@
 package com.jfallon.finance_app.service;
 
+import com.jfallon.finance_app.dto.BulkItemResult;
+import com.jfallon.finance_app.dto.EntrySearchQuery;
+import com.jfallon.finance_app.event.UserDataChangedEvent;
 import com.jfallon.finance_app.model.Expense;
 import com.jfallon.finance_app.model.Transaction;
+import com.jfallon.finance_app.repository.EntrySpecifications;
 import com.jfallon.finance_app.repository.ExpenseRepository;
+import com.jfallon.finance_app.repository.MonthlyCategoryTotalRepository;
 import com.jfallon.finance_app.userauth.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +22,7 @@ import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,25 +31,105 @@ public class ExpenseService {
     private ExpenseRepository expenseRepository;
     @Autowired
     private TransactionService transactionService;
+    @Autowired
+    private MonthlyCategoryTotalService monthlyCategoryTotalService;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final BulkOperation<Expense> bulk = new BulkOperation<>("expense", Expense::getId, Expense::getUser, this::validate);
 
     @Transactional
     public Expense saveExpense(Expense expense) {
+        if (expense.getStartDate() == null) {
+            expense.setStartDate(LocalDateTime.now());
+        }
+        categoryService.assign(expense);
         Expense saved = expenseRepository.save(expense);
 
         // Create corresponding transaction
+        transactionService.createTransaction(mirror(saved));
+        changed(saved.getUser());
+
+        return saved;
+    }
+
+    // Valid items are inserted together with their ledger rows in one transaction; invalid ones are reported and skipped
+    @Transactional
+    public List<BulkItemResult> createExpenses(User user, List<Expense> expenses) {
+        return bulk.create(expenses, valid -> {
+            valid.forEach(expense -> {
+                expense.setId(null);
+                expense.setUser(user);
+                if (expense.getStartDate() == null) {
+                    expense.setStartDate(LocalDateTime.now());
+                }
+                categoryService.assign(expense);
+            });
+            List<Expense> saved = expenseRepository.saveAll(valid);
+            transactionService.createTransactions(user, saved.stream().map(this::mirror).collect(Collectors.toList()));
+            changed(user);
+            return saved;
+        });
+    }
+
+    @Transactional
+    public List<BulkItemResult> updateExpenses(User user, List<Expense> updates) {
+        return bulk.update(user, updates, expenseRepository::findAllById, (expense, update) -> {
+            expense.setCategory(update.getCategory());
+            expense.setAmount(update.getAmount());
+            expense.setFrequency(update.getFrequency());
+            if (update.getStartDate() != null) {
+                expense.setStartDate(update.getStartDate());
+            }
+            categoryService.assign(expense);
+        }, changed -> {
+            expenseRepository.saveAll(changed);
+            transactionService.updateTransactionsForExpenses(user, changed);
+            changed(user);
+        });
+    }
+
+    @Transactional
+    public List<BulkItemResult> deleteExpenses(User user, List<Long> ids) {
+        return bulk.delete(user, ids, expenseRepository::findAllById, deletable -> {
+            Set<Long> deletableIds = deletable.stream().map(Expense::getId).collect(Collectors.toSet());
+            transactionService.deleteTransactionsByReferences(user, "EXPENSE", deletableIds);
+            expenseRepository.deleteAllByIdInBatch(deletableIds);
+            changed(user);
+        });
+    }
+
+    private String validate(Expense expense) {
+        if (expense.getCategory() == null || expense.getCategory().isBlank()) {
+            return "category is required";
+        }
+        if (expense.getAmount() == null || expense.getAmount().signum() <= 0) {
+            return "amount must be positive";
+        }
+        if (expense.getFrequency() == null || expense.getFrequency().isBlank()) {
+            expense.setFrequency("ONE_TIME");
+        }
+        return null;
+    }
+
+    // Frequency edits don't touch the ledger, so readers of expense data are told separately
+    private void changed(User user) {
+        eventPublisher.publishEvent(new UserDataChangedEvent(user.getId(), UserDataChangedEvent.Kind.EXPENSE));
+    }
+
+    // Booked on the start date, the same month getExpensesByMonth and the expense search put the expense in
+    private Transaction mirror(Expense expense) {
         Transaction transaction = new Transaction();
         transaction.setUser(expense.getUser());
         transaction.setType("EXPENSE");
         transaction.setCategory(expense.getCategory());
         transaction.setAmount(expense.getAmount());
-        transaction.setTransactionDate(LocalDateTime.now());
+        transaction.setTransactionDate(expense.getStartDate() != null ? expense.getStartDate() : LocalDateTime.now());
         transaction.setReferenceType("EXPENSE");
-        transaction.setReferenceId(saved.getId());
-        transaction.setDescription("Expense: " + expense.getCategory());
-
-        transactionService.createTransaction(transaction);
-
-        return saved;
+        transaction.setReferenceId(expense.getId());
+        return transaction;
     }
 
     public List<Expense> getAllExpenses(){
@@ -59,18 +148,24 @@ public class ExpenseService {
         existingExpense.setCategory(updatedExpense.getCategory());
         existingExpense.setAmount(updatedExpense.getAmount());
         existingExpense.setFrequency(updatedExpense.getFrequency());
+        if (updatedExpense.getStartDate() != null) {
+            existingExpense.setStartDate(updatedExpense.getStartDate());
+        }
+        categoryService.assign(existingExpense);
 
         // Save the updated expense
         Expense saved = expenseRepository.save(existingExpense);
 
         // Update the corresponding transaction
         transactionService.updateTransactionForExpense(saved);
+        changed(saved.getUser());
 
         return saved;
     }
 
     @Transactional
     public void deleteExpense(Long id){
+        expenseRepository.findById(id).ifPresent(expense -> changed(expense.getUser()));
         transactionService.deleteTransactionsByReferenceTypeAndId("EXPENSE", id);
         expenseRepository.deleteById(id);
     }
@@ -80,28 +175,33 @@ public class ExpenseService {
     }
 
     public List<Expense> getExpensesByMonth(User user, YearMonth month) {
-        return getExpensesByUser(user).stream()
-                .filter(expense -> expense.getStartDate() != null &&
-                        YearMonth.from(expense.getStartDate()).equals(month))
-                .collect(Collectors.toList());
+        return expenseRepository.findByUserAndStartDateGreaterThanEqualAndStartDateLessThan(
+                user, month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Expense> searchExpenses(EntrySearchQuery query, String sort, int page, int size) {
+        if (query.getCategories() != null && !query.getCategories().isEmpty()) {
+            query.setCategoryIds(categoryService.findIds(query.getUser().getId(), query.getCategories()));
+        }
+        return expenseRepository.findAll(EntrySpecifications.matching(query, "category"),
+                PageRequest.of(page, size, EntrySpecifications.sort(sort, "category")));
     }
 
     public List<Map<String, Object>> getExpenseBreakdown(User user) {
-        Map<String, BigDecimal> categoryTotals = getExpensesByUser(user).stream()
-                .collect(Collectors.groupingBy(
-                        Expense::getCategory,
-                        Collectors.reducing(
-                                BigDecimal.ZERO,
-                                Expense::getAmount,
-                                BigDecimal::add
-                        )
-                ));
-
-        return categoryTotals.entrySet().stream()
-                .map(entry -> {
+        return getExpenseBreakdown(user, null);
+    }
+
+    // Category totals read from the monthly rollup; a null start date covers the user's whole history
+    public List<Map<String, Object>> getExpenseBreakdown(User user, LocalDateTime from) {
+        List<MonthlyCategoryTotalRepository.CategoryTotal> categoryTotals = monthlyCategoryTotalService.sumByCategory(
+                user, "EXPENSE", from == null ? null : YearMonth.from(from));
+
+        return categoryTotals.stream()
+                .map(total -> {
                     Map<String, Object> categoryData = new HashMap<>();
-                    categoryData.put("category", entry.getKey());
-                    categoryData.put("value", entry.getValue());
+                    categoryData.put("category", total.getCategory());
+                    categoryData.put("value", total.getTotal());
                     return categoryData;
                 })
                 .collect(Collectors.toList());
@@ -109,9 +209,6 @@ public class ExpenseService {
 
     public BigDecimal calculateMonthlyExpenses(User user) {
         LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0);
-        return getExpensesByUser(user).stream()
-                .filter(expense -> expense.getStartDate().isAfter(startOfMonth))
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return expenseRepository.sumAmountStartedAfter(user, startOfMonth);
     }
 }
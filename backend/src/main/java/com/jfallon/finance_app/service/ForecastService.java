@@ -0,0 +1,236 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.ForecastMonth;
+import com.jfallon.finance_app.dto.Frequency;
+import com.jfallon.finance_app.event.LedgerChangedEvent;
+import com.jfallon.finance_app.model.Balance;
+import com.jfallon.finance_app.model.Expense;
+import com.jfallon.finance_app.model.Income;
+import com.jfallon.finance_app.repository.BalanceRepository;
+import com.jfallon.finance_app.repository.ExpenseRepository;
+import com.jfallon.finance_app.repository.IncomeRepository;
+import com.jfallon.finance_app.userauth.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Projects recurring expense and income schedules forward month by month
+@Service
+public class ForecastService {
+    private static final Logger logger = LoggerFactory.getLogger(ForecastService.class);
+    private static final String FORECAST = "forecast";
+    private static final int USER_CHUNK_SIZE = 500;
+    public static final int MAX_MONTHS = 60;
+
+    private final ExpenseRepository expenseRepository;
+    private final IncomeRepository incomeRepository;
+    private final BalanceRepository balanceRepository;
+    private final UserSnapshotCache snapshotCache;
+    private final TransactionTemplate readOnlyTemplate;
+    private final int batchParallelism;
+
+    public ForecastService(
+            ExpenseRepository expenseRepository,
+            IncomeRepository incomeRepository,
+            BalanceRepository balanceRepository,
+            UserSnapshotCache snapshotCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${forecast.batch.parallelism:3}") int batchParallelism) {
+        this.expenseRepository = expenseRepository;
+        this.incomeRepository = incomeRepository;
+        this.balanceRepository = balanceRepository;
+        this.snapshotCache = snapshotCache;
+        this.batchParallelism = batchParallelism;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+    }
+
+    // Served from the nightly batch when possible; a cached forecast is only valid on the day it was computed
+    public List<ForecastMonth> getForecast(User user, int months) {
+        if (months < 1 || months > MAX_MONTHS) {
+            throw new IllegalArgumentException("months must be between 1 and " + MAX_MONTHS);
+        }
+        List<ForecastMonth> forecast = snapshotCache.get(user.getId(), FORECAST, millisUntilTomorrow(),
+                () -> readOnlyTemplate.execute(status -> computeForecast(user, MAX_MONTHS)));
+        return forecast.subList(0, months);
+    }
+
+    // Projected income for a whole calendar month, counting every occurrence in it
+    public BigDecimal getIncomeForMonth(User user, YearMonth month) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Income income : incomeRepository.findByUser(user)) {
+            long count = occurrences(Frequency.fromString(income.getFrequency()), anchor(income.getStartDate(), month.atDay(1)),
+                    lastDay(income.getEndDate()), month.atDay(1), month.plusMonths(1).atDay(1));
+            total = total.add(income.getAmount().multiply(BigDecimal.valueOf(count)));
+        }
+        return total;
+    }
+
+    public List<ForecastMonth> computeForecast(User user, int months) {
+        List<Expense> expenses = expenseRepository.findByUser(user);
+        List<Income> incomes = incomeRepository.findByUser(user);
+
+        LocalDate today = LocalDate.now();
+        List<ForecastMonth> forecast = new ArrayList<>(months);
+        BigDecimal cumulative = BigDecimal.ZERO;
+        YearMonth month = YearMonth.from(today);
+
+        for (int i = 0; i < months; i++, month = month.plusMonths(1)) {
+            // The current month only counts what is still to come
+            LocalDate from = i == 0 ? today : month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+
+            ForecastMonth projected = new ForecastMonth();
+            projected.setMonth(month.toString());
+
+            for (Income income : incomes) {
+                long count = occurrences(Frequency.fromString(income.getFrequency()),
+                        anchor(income.getStartDate(), today), lastDay(income.getEndDate()), from, to);
+                if (count > 0) {
+                    projected.setIncome(projected.getIncome().add(income.getAmount().multiply(BigDecimal.valueOf(count))));
+                }
+            }
+            for (Expense expense : expenses) {
+                long count = occurrences(Frequency.fromString(expense.getFrequency()),
+                        anchor(expense.getStartDate(), today), lastDay(expense.getEndDate()), from, to);
+                if (count > 0) {
+                    BigDecimal amount = expense.getAmount().multiply(BigDecimal.valueOf(count));
+                    projected.setExpenses(projected.getExpenses().add(amount));
+                    projected.getExpensesByCategory().merge(expense.getCategory(), amount, BigDecimal::add);
+                }
+            }
+
+            projected.setNet(projected.getIncome().subtract(projected.getExpenses()));
+            cumulative = cumulative.add(projected.getNet());
+            projected.setCumulativeNet(cumulative);
+            forecast.add(projected);
+        }
+        return forecast;
+    }
+
+    // Number of occurrences in [from, to) of a schedule starting on anchor and ending on end (inclusive, null for open-ended)
+    static long occurrences(Frequency frequency, LocalDate anchor, LocalDate end, LocalDate from, LocalDate to) {
+        LocalDate windowStart = anchor.isAfter(from) ? anchor : from;
+        LocalDate windowEnd = end != null && end.plusDays(1).isBefore(to) ? end.plusDays(1) : to;
+        if (!windowStart.isBefore(windowEnd)) {
+            return 0;
+        }
+
+        if (frequency == Frequency.ONE_TIME) {
+            return anchor.isBefore(windowStart) ? 0 : 1;
+        }
+
+        if (frequency.getPeriodDays() > 0) {
+            // Occurrences fall on anchor + k * period; count the k whose date lands in the window
+            long period = frequency.getPeriodDays();
+            long first = ceilDiv(ChronoUnit.DAYS.between(anchor, windowStart), period);
+            long last = ceilDiv(ChronoUnit.DAYS.between(anchor, windowEnd), period) - 1;
+            return Math.max(0, last - first + 1);
+        }
+
+        // Calendar schedules land on anchor.plusMonths(k * period); only the boundary months need a date check
+        long period = frequency.getPeriodMonths();
+        long firstK = ceilDiv(ChronoUnit.MONTHS.between(YearMonth.from(anchor), YearMonth.from(windowStart)), period);
+        long lastK = Math.floorDiv(ChronoUnit.MONTHS.between(YearMonth.from(anchor), YearMonth.from(windowEnd.minusDays(1))), period);
+        long count = lastK - firstK + 1;
+        if (count > 0 && anchor.plusMonths(firstK * period).isBefore(windowStart)) {
+            count--;
+        }
+        if (count > 0 && !anchor.plusMonths(lastK * period).isBefore(windowEnd)) {
+            count--;
+        }
+        return Math.max(0, count);
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    // Rows created before schedules were tracked have no start date; treat them as starting now
+    private static LocalDate anchor(LocalDateTime startDate, LocalDate fallback) {
+        return startDate != null ? startDate.toLocalDate() : fallback;
+    }
+
+    private static LocalDate lastDay(LocalDateTime endDate) {
+        return endDate != null ? endDate.toLocalDate() : null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        snapshotCache.invalidate(event.userId(), List.of(FORECAST));
+    }
+
+    @Scheduled(cron = "${forecast.batch.cron:0 45 4 * * *}")
+    public void precomputeAll() {
+        long started = System.currentTimeMillis();
+        AtomicInteger computed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(batchParallelism);
+
+        try {
+            long lastId = 0L;
+            while (true) {
+                List<Balance> balances = balanceRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(USER_CHUNK_SIZE));
+                if (balances.isEmpty()) {
+                    break;
+                }
+
+                List<Future<?>> futures = new ArrayList<>(balances.size());
+                for (Balance balance : balances) {
+                    User user = balance.getUser();
+                    futures.add(executor.submit(() -> {
+                        try {
+                            snapshotCache.load(user.getId(), FORECAST, millisUntilTomorrow(),
+                                    () -> readOnlyTemplate.execute(status -> computeForecast(user, MAX_MONTHS)));
+                            computed.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            failed.incrementAndGet();
+                            logger.error("Failed to compute forecast for user {}", user.getId(), e);
+                        }
+                    }));
+                }
+                // Finish the chunk before fetching the next so at most one chunk of users is held at a time
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    }
+                }
+                lastId = balances.get(balances.size() - 1).getId();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.info("Precomputed forecasts for {} users ({} failed) in {} ms",
+                computed.get(), failed.get(), System.currentTimeMillis() - started);
+    }
+
+    private static long millisUntilTomorrow() {
+        return Duration.between(LocalDateTime.now(), LocalDate.now().plusDays(1).atStartOfDay()).toMillis();
+    }
+}
@@ -1,16 +1,26 @@
 package com.jfallon.finance_app.service;
 
+import com.jfallon.finance_app.dto.BulkItemResult;
+import com.jfallon.finance_app.dto.EntrySearchQuery;
+import com.jfallon.finance_app.event.UserDataChangedEvent;
 import com.jfallon.finance_app.model.Income;
 import com.jfallon.finance_app.model.Transaction;
+import com.jfallon.finance_app.repository.EntrySpecifications;
 import com.jfallon.finance_app.repository.IncomeRepository;
 import com.jfallon.finance_app.userauth.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class IncomeService {
@@ -18,24 +28,99 @@ public class IncomeService {
     private IncomeRepository incomeRepository;
     @Autowired
     private TransactionService transactionService;
+    @Autowired
+    private ForecastService forecastService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final BulkOperation<Income> bulk = new BulkOperation<>("income", Income::getId, Income::getUser, this::validate);
 
     @Transactional
     public Income saveIncome(Income income) {
+        if (income.getStartDate() == null) {
+            income.setStartDate(LocalDateTime.now());
+        }
         Income saved = incomeRepository.save(income);
 
+        transactionService.createTransaction(mirror(saved));
+        changed(saved.getUser());
+
+        return saved;
+    }
+
+    // Valid items are inserted together with their ledger rows in one transaction; invalid ones are reported and skipped
+    @Transactional
+    public List<BulkItemResult> createIncomes(User user, List<Income> incomes) {
+        return bulk.create(incomes, valid -> {
+            valid.forEach(income -> {
+                income.setId(null);
+                income.setUser(user);
+                if (income.getStartDate() == null) {
+                    income.setStartDate(LocalDateTime.now());
+                }
+            });
+            List<Income> saved = incomeRepository.saveAll(valid);
+            transactionService.createTransactions(user, saved.stream().map(this::mirror).collect(Collectors.toList()));
+            changed(user);
+            return saved;
+        });
+    }
+
+    @Transactional
+    public List<BulkItemResult> updateIncomes(User user, List<Income> updates) {
+        return bulk.update(user, updates, incomeRepository::findAllById, (income, update) -> {
+            income.setType(update.getType());
+            income.setAmount(update.getAmount());
+            income.setFrequency(update.getFrequency());
+            if (update.getStartDate() != null) {
+                income.setStartDate(update.getStartDate());
+            }
+            income.setEndDate(update.getEndDate());
+        }, changed -> {
+            incomeRepository.saveAll(changed);
+            transactionService.updateTransactionsForIncomes(user, changed);
+            changed(user);
+        });
+    }
+
+    @Transactional
+    public List<BulkItemResult> deleteIncomes(User user, List<Long> ids) {
+        return bulk.delete(user, ids, incomeRepository::findAllById, deletable -> {
+            Set<Long> deletableIds = deletable.stream().map(Income::getId).collect(Collectors.toSet());
+            transactionService.deleteTransactionsByReferences(user, "INCOME", deletableIds);
+            incomeRepository.deleteAllByIdInBatch(deletableIds);
+            changed(user);
+        });
+    }
+
+    private String validate(Income income) {
+        if (income.getType() == null || income.getType().isBlank()) {
+            return "type is required";
+        }
+        if (income.getAmount() == null || income.getAmount().signum() <= 0) {
+            return "amount must be positive";
+        }
+        if (income.getFrequency() == null || income.getFrequency().isBlank()) {
+            income.setFrequency("ONE_TIME");
+        }
+        return null;
+    }
+
+    // Frequency and end-date edits don't touch the ledger, so readers of income data are told separately
+    private void changed(User user) {
+        eventPublisher.publishEvent(new UserDataChangedEvent(user.getId(), UserDataChangedEvent.Kind.INCOME));
+    }
+
+    private Transaction mirror(Income income) {
         Transaction transaction = new Transaction();
         transaction.setUser(income.getUser());
         transaction.setType("INCOME");
         transaction.setCategory(income.getType());
         transaction.setAmount(income.getAmount());
-        transaction.setTransactionDate(LocalDateTime.now());
+        transaction.setTransactionDate(income.getStartDate() != null ? income.getStartDate() : LocalDateTime.now());
         transaction.setReferenceType("INCOME");
-        transaction.setReferenceId(saved.getId());
-        transaction.setDescription("Income: " + income.getType());
-
-        transactionService.createTransaction(transaction);
-
-        return saved;
+        transaction.setReferenceId(income.getId());
+        return transaction;
     }
 
     @Transactional
@@ -46,22 +131,17 @@ public class IncomeService {
         existingIncome.setType(updatedIncome.getType());
         existingIncome.setAmount(updatedIncome.getAmount());
         existingIncome.setFrequency(updatedIncome.getFrequency());
+        if (updatedIncome.getStartDate() != null) {
+            existingIncome.setStartDate(updatedIncome.getStartDate());
+        }
+        existingIncome.setEndDate(updatedIncome.getEndDate());
 
         // Save the updated income
         Income saved = incomeRepository.save(existingIncome);
 
         // Update the corresponding transaction
-        Transaction transaction = new Transaction();
-        transaction.setUser(saved.getUser());
-        transaction.setType("INCOME");
-        transaction.setCategory(saved.getType());
-        transaction.setAmount(saved.getAmount());
-        transaction.setTransactionDate(LocalDateTime.now());
-        transaction.setReferenceType("INCOME");
-        transaction.setReferenceId(saved.getId());
-        transaction.setDescription("Income: " + saved.getType()); // Add description
-
         transactionService.updateTransactionForIncome(saved);
+        changed(saved.getUser());
 
         return saved;
     }
@@ -75,7 +155,9 @@ public class IncomeService {
                 .orElseThrow(() -> new RuntimeException("Income not found"));
     }
 
+    @Transactional
     public void deleteIncome(Long id){
+        incomeRepository.findById(id).ifPresent(income -> changed(income.getUser()));
         transactionService.deleteTransactionsByReferenceTypeAndId("INCOME", id);
         incomeRepository.deleteById(id);
     }
@@ -84,10 +166,14 @@ public class IncomeService {
         return incomeRepository.findByUser(user);
     }
 
+    @Transactional(readOnly = true)
+    public Page<Income> searchIncomes(EntrySearchQuery query, String sort, int page, int size) {
+        return incomeRepository.findAll(EntrySpecifications.matching(query, "type"),
+                PageRequest.of(page, size, EntrySpecifications.sort(sort, "type")));
+    }
+
+    // Every occurrence in the current calendar month, whatever the schedule
     public BigDecimal calculateMonthlyIncome(User user) {
-        return getIncomesByUser(user).stream()
-                .filter(income -> "MONTHLY".equals(income.getFrequency()))
-                .map(Income::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return forecastService.getIncomeForMonth(user, YearMonth.now());
     }
 }
@@ -0,0 +1,363 @@
+package com.jfallon.finance_app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jfallon.finance_app.dto.BudgetAlert;
+import com.jfallon.finance_app.event.BudgetAlertEvent;
+import com.jfallon.finance_app.event.LedgerChangedEvent;
+import com.jfallon.finance_app.event.UserDataChangedEvent;
+import com.jfallon.finance_app.userauth.model.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pushes committed changes to the user's open /api/stream connections. Emitters are parked on the servlet container's
+// async support, so an idle connection holds no thread. Ledger payloads are loaded on their own small pool, only for
+// users with a connection open, and serialized once per push; ledger changes that arrive faster than that are merged.
+// Every connection has its own outbox drained by a shared sender pool, so a client that stops reading only ever
+// holds up itself: when its outbox fills or a send hangs past the send timeout it is dropped.
+@Service
+public class LiveUpdateService {
+    private static final Logger logger = LoggerFactory.getLogger(LiveUpdateService.class);
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> PING = SseEmitter.event().comment("ping").build();
+
+    private final DashboardService dashboardService;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int maxPerUser;
+    private final int maxPendingPerConnection;
+    private final long sendTimeoutMillis;
+    private final ExecutorService loader;
+    private final ExecutorService sender;
+
+    private final Map<Long, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    // Ledger deltas per user not yet sent, merged by bucket; a present key means a push is already queued
+    private final Map<Long, Map<Bucket, BigDecimal>> pendingLedger = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong disconnected = new AtomicLong();
+
+    public LiveUpdateService(
+            DashboardService dashboardService,
+            ObjectMapper objectMapper,
+            @Value("${stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${stream.max-per-user:5}") int maxPerUser,
+            @Value("${stream.queue-capacity:10000}") int queueCapacity,
+            @Value("${stream.load-threads:2}") int loadThreads,
+            @Value("${stream.send-threads:4}") int sendThreads,
+            @Value("${stream.max-pending-per-connection:64}") int maxPendingPerConnection,
+            @Value("${stream.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this.dashboardService = dashboardService;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.maxPerUser = maxPerUser;
+        this.maxPendingPerConnection = maxPendingPerConnection;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.loader = pool("live-updates-load", loadThreads, new ArrayBlockingQueue<>(queueCapacity));
+        // At most one drain task per connection is ever queued, so the connection cap bounds this queue
+        this.sender = pool("live-updates-send", sendThreads, new LinkedBlockingQueue<>());
+    }
+
+    @PreDestroy
+    public void stop() {
+        loader.shutdownNow();
+        sender.shutdownNow();
+        subscriptions.values().forEach(subs -> subs.forEach(sub -> sub.emitter().complete()));
+    }
+
+    public SseEmitter subscribe(User user) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = new Subscription(user, emitter);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(error -> remove(subscription));
+
+        // Added inside compute so a concurrent remove() can't drop the list between lookup and add
+        List<Subscription> subs = subscriptions.compute(user.getId(), (id, existing) -> {
+            List<Subscription> list = existing != null ? existing : new CopyOnWriteArrayList<>();
+            list.add(subscription);
+            return list;
+        });
+        // Forgotten tabs shouldn't pile up; the oldest connection of the user makes room
+        while (subs.size() > maxPerUser) {
+            close(subs.remove(0));
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> ready = event("ready", Map.of("userId", user.getId()));
+        if (ready != null) {
+            deliver(subscription, ready);
+        }
+        return emitter;
+    }
+
+    public int getConnectionCount() {
+        return subscriptions.values().stream().mapToInt(List::size).sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Connections dropped because the client stopped reading
+    public long getDisconnectedCount() {
+        return disconnected.get();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        if (!subscriptions.containsKey(event.userId())) {
+            return;
+        }
+        boolean[] queued = {true};
+        pendingLedger.compute(event.userId(), (id, buckets) -> {
+            if (buckets == null) {
+                buckets = new LinkedHashMap<>();
+                queued[0] = false;
+            }
+            for (LedgerChangedEvent.Change change : event.changes()) {
+                buckets.merge(new Bucket(change.month(), change.category(), change.type()), change.amount(), BigDecimal::add);
+            }
+            return buckets;
+        });
+        if (queued[0]) {
+            return;
+        }
+        // Never blocks the publisher: when the load queue is full the push is dropped and counted
+        try {
+            loader.execute(() -> {
+                try {
+                    pushLedger(event.userId());
+                } catch (RuntimeException e) {
+                    logger.error("Failed to push live update", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingLedger.remove(event.userId());
+            long count = dropped.incrementAndGet();
+            logger.warn("Live update queue full, dropped a push ({} dropped so far)", count);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        if (subscriptions.containsKey(event.userId())) {
+            push(event.userId(), "data", Map.of("kind", event.kind()));
+        }
+    }
+
+    // Alerts are published from the alert worker, outside any transaction
+    @EventListener
+    public void onBudgetAlert(BudgetAlertEvent event) {
+        BudgetAlert alert = event.alert();
+        if (subscriptions.containsKey(alert.getUserId())) {
+            push(alert.getUserId(), "budget", alert);
+        }
+    }
+
+    // Keeps proxies from closing idle connections and finds dead ones, which are only noticed on a failed write.
+    // A connection still stuck in one send after the send timeout is dropped instead of pinged.
+    @Scheduled(fixedDelayString = "${stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        subscriptions.values().forEach(subs -> subs.forEach(sub -> {
+            long sendingSince = sub.sendingSince;
+            if (sendingSince != 0 && now - sendingSince > sendTimeoutMillis) {
+                disconnect(sub, "send blocked for " + (now - sendingSince) + " ms");
+            } else {
+                deliver(sub, PING);
+            }
+        }));
+    }
+
+    // Runs on the load pool, so a slow dashboard query only delays this user's push
+    private void pushLedger(Long userId) {
+        Map<Bucket, BigDecimal> buckets = pendingLedger.remove(userId);
+        List<Subscription> subs = subscriptions.get(userId);
+        if (buckets == null || subs == null || subs.isEmpty()) {
+            return;
+        }
+        List<Map<String, Object>> changes = new ArrayList<>();
+        buckets.forEach((bucket, amount) -> {
+            Map<String, Object> change = new HashMap<>();
+            change.put("month", bucket.month().toString());
+            change.put("category", bucket.category());
+            change.put("type", bucket.type());
+            change.put("amount", amount);
+            changes.add(change);
+        });
+
+        // Served from the snapshot cache, so every tab of the user shares one load
+        User user = subs.get(0).user();
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("balance", dashboardService.balance(user));
+        payload.put("transactions", dashboardService.recentLedger(user));
+        payload.put("recent", dashboardService.transactions(user).get("recent"));
+        payload.put("changes", changes);
+        push(userId, "ledger", payload);
+    }
+
+    // Serializes once and hands the same frame to every connection of the user
+    private void push(Long userId, String name, Object data) {
+        List<Subscription> subs = subscriptions.get(userId);
+        if (subs == null) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> event = event(name, data);
+        if (event != null) {
+            subs.forEach(sub -> deliver(sub, event));
+        }
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> event(String name, Object data) {
+        try {
+            return SseEmitter.event().name(name).data(objectMapper.writeValueAsString(data)).build();
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize live update \"{}\"", name, e);
+            return null;
+        }
+    }
+
+    private void deliver(Subscription subscription, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        if (subscription.closed.get()) {
+            return;
+        }
+        if (subscription.pending.incrementAndGet() > maxPendingPerConnection) {
+            subscription.pending.decrementAndGet();
+            disconnect(subscription, "outbox full");
+            return;
+        }
+        subscription.outbox.add(event);
+        schedule(subscription);
+    }
+
+    private void schedule(Subscription subscription) {
+        if (subscription.draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscription));
+            } catch (RejectedExecutionException e) {
+                subscription.draining.set(false);
+            }
+        }
+    }
+
+    // Sends one connection's outbox in order; only one drain per connection runs at a time
+    private void drain(Subscription subscription) {
+        Set<ResponseBodyEmitter.DataWithMediaType> event;
+        while (!subscription.closed.get() && (event = subscription.outbox.poll()) != null) {
+            subscription.pending.decrementAndGet();
+            subscription.sendingSince = System.currentTimeMillis();
+            try {
+                subscription.emitter().send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the container reports it through onError/onCompletion as well
+                remove(subscription);
+                subscription.closed.set(true);
+            } finally {
+                subscription.sendingSince = 0;
+            }
+        }
+        if (subscription.closed.get()) {
+            subscription.outbox.clear();
+            // Completed from here rather than by whoever closed it: complete() waits for a send in progress.
+            // draining stays set, so no other drain runs for this connection again.
+            subscription.emitter().complete();
+            return;
+        }
+        subscription.draining.set(false);
+        // An event added, or a close, after the last poll but before the flag was cleared still needs a drain
+        if (!subscription.outbox.isEmpty() || subscription.closed.get()) {
+            schedule(subscription);
+        }
+    }
+
+    private void disconnect(Subscription subscription, String reason) {
+        if (!subscription.closed.get()) {
+            long count = disconnected.incrementAndGet();
+            logger.info("Dropping slow live update connection of user {}: {} ({} dropped so far)",
+                    subscription.user().getId(), reason, count);
+        }
+        close(subscription);
+    }
+
+    // A send in progress finishes or fails on the container's write timeout; the drain then completes the emitter
+    private void close(Subscription subscription) {
+        remove(subscription);
+        if (subscription.closed.compareAndSet(false, true)) {
+            subscription.outbox.clear();
+            schedule(subscription);
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.user().getId(), (id, subs) -> {
+            subs.remove(subscription);
+            return subs.isEmpty() ? null : subs;
+        });
+    }
+
+    private static ExecutorService pool(String name, int threads, BlockingQueue<Runnable> queue) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Subscription {
+        private final User user;
+        private final SseEmitter emitter;
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // When the send in progress started, or 0 when none is
+        private volatile long sendingSince;
+
+        private Subscription(User user, SseEmitter emitter) {
+            this.user = user;
+            this.emitter = emitter;
+        }
+
+        private User user() {
+            return user;
+        }
+
+        private SseEmitter emitter() {
+            return emitter;
+        }
+    }
+
+    private record Bucket(YearMonth month, String category, String type) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.event.LedgerChangedEvent;
+import com.jfallon.finance_app.model.MonthlyCategoryTotal;
+import com.jfallon.finance_app.model.Transaction;
+import com.jfallon.finance_app.repository.BudgetCarryoverRepository;
+import com.jfallon.finance_app.repository.MonthlyCategoryTotalRepository;
+import com.jfallon.finance_app.userauth.model.User;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+public class MonthlyCategoryTotalService {
+    private static final Logger logger = LoggerFactory.getLogger(MonthlyCategoryTotalService.class);
+
+    private final MonthlyCategoryTotalRepository monthlyCategoryTotalRepository;
+    private final BudgetCarryoverRepository budgetCarryoverRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Called from the ledger write paths, inside the caller's transaction
+    @Transactional
+    public void recordCreated(Transaction transaction) {
+        List<LedgerChangedEvent.Change> changes = new ArrayList<>();
+        add(changes, transaction.getUser(), transaction.getTransactionDate(), transaction.getCategory(),
+                transaction.getType(), transaction.getAmount(), 1);
+        publish(transaction.getUser(), changes);
+    }
+
+    @Transactional
+    public void recordCreated(User user, List<Transaction> transactions) {
+        Map<Bucket, BigDecimal> totals = new HashMap<>();
+        Map<Bucket, Long> counts = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            Bucket bucket = new Bucket(YearMonth.from(transaction.getTransactionDate()),
+                    normalize(transaction.getCategory()), transaction.getType());
+            totals.merge(bucket, transaction.getAmount(), BigDecimal::add);
+            counts.merge(bucket, 1L, Long::sum);
+        }
+        List<LedgerChangedEvent.Change> changes = new ArrayList<>();
+        totals.forEach((bucket, total) -> {
+            monthlyCategoryTotalRepository.addToTotal(user.getId(),
+                    bucket.month().atDay(1), bucket.category(), bucket.type(), total, counts.get(bucket));
+            changes.add(new LedgerChangedEvent.Change(bucket.month(), bucket.category(), bucket.type(), total));
+        });
+        publish(user, changes);
+    }
+
+    @Transactional
+    public void recordDeleted(Transaction transaction) {
+        List<LedgerChangedEvent.Change> changes = new ArrayList<>();
+        add(changes, transaction.getUser(), transaction.getTransactionDate(), transaction.getCategory(),
+                transaction.getType(), transaction.getAmount().negate(), -1);
+        publish(transaction.getUser(), changes);
+    }
+
+    @Transactional
+    public void recordUpdated(Transaction transaction, LocalDateTime oldDate, String oldCategory, BigDecimal oldAmount) {
+        boolean sameBucket = YearMonth.from(oldDate).equals(YearMonth.from(transaction.getTransactionDate()))
+                && Objects.equals(normalize(oldCategory), normalize(transaction.getCategory()));
+        List<LedgerChangedEvent.Change> changes = new ArrayList<>();
+        if (sameBucket) {
+            add(changes, transaction.getUser(), transaction.getTransactionDate(), transaction.getCategory(),
+                    transaction.getType(), transaction.getAmount().subtract(oldAmount), 0);
+        } else {
+            add(changes, transaction.getUser(), oldDate, oldCategory, transaction.getType(), oldAmount.negate(), -1);
+            add(changes, transaction.getUser(), transaction.getTransactionDate(), transaction.getCategory(),
+                    transaction.getType(), transaction.getAmount(), 1);
+        }
+        publish(transaction.getUser(), changes);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, BigDecimal> getCategoryTotals(User user, YearMonth month, String type) {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        for (MonthlyCategoryTotal row : monthlyCategoryTotalRepository.findByUserAndMonthAndType(user, month, type)) {
+            totals.put(row.getCategory(), row.getTotal());
+        }
+        return totals;
+    }
+
+    // A null start month covers the user's whole history
+    @Transactional(readOnly = true)
+    public List<MonthlyCategoryTotalRepository.CategoryTotal> sumByCategory(User user, String type, YearMonth from) {
+        return from == null
+                ? monthlyCategoryTotalRepository.sumByCategory(user, type)
+                : monthlyCategoryTotalRepository.sumByCategorySince(user, type, from);
+    }
+
+    // Every (month, category) total of one type between two months, inclusive, in one query
+    @Transactional(readOnly = true)
+    public List<MonthlyCategoryTotal> getTotalsBetween(User user, String type, YearMonth from, YearMonth to) {
+        return monthlyCategoryTotalRepository.findByUserAndTypeAndMonthBetween(user, type, from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<MonthlyCategoryTotalRepository.MonthTotal> sumByMonth(User user, String type, YearMonth from) {
+        return monthlyCategoryTotalRepository.sumByMonthSince(user, type, from);
+    }
+
+    @Transactional
+    public int rebuild(User user) {
+        monthlyCategoryTotalRepository.deleteByUserId(user.getId());
+        // Carry-forward chains were shifted against the old totals; they are rebuilt on the next rollover read
+        budgetCarryoverRepository.deleteByUserId(user.getId());
+        int rows = monthlyCategoryTotalRepository.rebuildForUserId(user.getId());
+        logger.info("Rebuilt {} monthly category totals for user {}", rows, user.getId());
+        return rows;
+    }
+
+    @Transactional
+    public int rebuildAll() {
+        monthlyCategoryTotalRepository.deleteAllRows();
+        budgetCarryoverRepository.deleteAllRows();
+        int rows = monthlyCategoryTotalRepository.rebuildAllRows();
+        logger.info("Rebuilt {} monthly category totals from the ledger", rows);
+        return rows;
+    }
+
+    private void add(List<LedgerChangedEvent.Change> changes, User user, LocalDateTime date, String category,
+                     String type, BigDecimal amount, long count) {
+        YearMonth month = YearMonth.from(date);
+        monthlyCategoryTotalRepository.addToTotal(user.getId(), month.atDay(1), normalize(category), type, amount, count);
+        changes.add(new LedgerChangedEvent.Change(month, normalize(category), type, amount));
+    }
+
+    private void publish(User user, List<LedgerChangedEvent.Change> changes) {
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new LedgerChangedEvent(user.getId(), changes));
+        }
+    }
+
+    private String normalize(String category) {
+        return category == null ? "" : category;
+    }
+
+    private record Bucket(YearMonth month, String category, String type) {
+    }
+}
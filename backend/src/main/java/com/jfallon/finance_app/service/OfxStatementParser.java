@@ -0,0 +1,146 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.StatementRow;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Streams <STMTTRN> blocks out of OFX 1.x (SGML, unclosed leaf tags) or 2.x (XML) statements.
+// Only the fields of the transaction currently being read are kept in memory.
+public class OfxStatementParser implements StatementParser {
+    private static final DateTimeFormatter OFX_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String DEFAULT_CATEGORY = "Uncategorized";
+
+    private final Reader reader;
+    private final StringBuilder buffer = new StringBuilder();
+    private long lineNumber = 1;
+    private int pending = -1;
+
+    public OfxStatementParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public StatementRow next() throws IOException {
+        Map<String, String> fields = null;
+        long startLine = 0;
+
+        String tag;
+        while ((tag = nextTag()) != null) {
+            if (tag.equals("STMTTRN")) {
+                fields = new HashMap<>();
+                startLine = lineNumber;
+            } else if (tag.equals("/STMTTRN") && fields != null) {
+                return toRow(fields, startLine);
+            } else if (fields != null && !tag.startsWith("/")) {
+                String value = readValue();
+                if (!value.isEmpty()) {
+                    fields.put(tag, value);
+                }
+            }
+        }
+        return fields == null ? null : StatementRow.failed(startLine, "Unterminated STMTTRN block");
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private StatementRow toRow(Map<String, String> fields, long line) {
+        try {
+            String rawAmount = fields.get("TRNAMT");
+            if (rawAmount == null) {
+                return StatementRow.failed(line, "Missing TRNAMT");
+            }
+            BigDecimal amount;
+            try {
+                amount = new BigDecimal(rawAmount.replace(',', '.'));
+            } catch (NumberFormatException e) {
+                return StatementRow.failed(line, "Invalid TRNAMT: " + rawAmount);
+            }
+            if (amount.signum() == 0) {
+                return StatementRow.failed(line, "Amount is zero");
+            }
+
+            StatementRow row = new StatementRow();
+            row.setLineNumber(line);
+            row.setDate(parseDate(fields.get("DTPOSTED")));
+            row.setAmount(amount);
+            row.setType(amount.signum() < 0 ? "EXPENSE" : "INCOME");
+            row.setCategory(DEFAULT_CATEGORY);
+            String name = fields.get("NAME");
+            String memo = fields.get("MEMO");
+            row.setDescription(name != null ? name : memo);
+            return row;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return StatementRow.failed(line, e.getMessage());
+        }
+    }
+
+    // OFX dates are yyyyMMdd[HHmmss[.XXX]][[offset:TZ]]; only the calendar date matters for the ledger
+    private LocalDateTime parseDate(String value) {
+        if (value == null || value.length() < 8) {
+            throw new IllegalArgumentException("Missing or invalid DTPOSTED");
+        }
+        return LocalDate.parse(value.substring(0, 8), OFX_DATE).atStartOfDay();
+    }
+
+    // Skips to the next '<' and returns the tag name, upper-cased
+    private String nextTag() throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != '<') {
+            // skip text between tags
+        }
+        if (c == -1) {
+            return null;
+        }
+        buffer.setLength(0);
+        while ((c = read()) != -1 && c != '>') {
+            buffer.append((char) c);
+        }
+        return buffer.toString().trim().toUpperCase();
+    }
+
+    // Reads a leaf value up to the next tag, leaving that '<' to be consumed by nextTag
+    private String readValue() throws IOException {
+        buffer.setLength(0);
+        int c;
+        while ((c = read()) != -1 && c != '<') {
+            buffer.append((char) c);
+        }
+        if (c == '<') {
+            pending = c;
+        }
+        return decodeEntities(buffer.toString().trim());
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pending != -1) {
+            c = pending;
+            pending = -1;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            lineNumber++;
+        }
+        return c;
+    }
+
+    private String decodeEntities(String value) {
+        if (value.indexOf('&') < 0) {
+            return value;
+        }
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+}
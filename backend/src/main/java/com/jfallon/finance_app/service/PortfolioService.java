@@ -1,11 +1,13 @@
 package com.jfallon.finance_app.service;
 
 import com.jfallon.finance_app.dto.PortfolioDTO;
+import com.jfallon.finance_app.event.UserDataChangedEvent;
 import com.jfallon.finance_app.model.Portfolio;
 import com.jfallon.finance_app.model.Stock;
 import com.jfallon.finance_app.repository.PortfolioRepository;
 import com.jfallon.finance_app.userauth.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +26,9 @@ public class PortfolioService {
     @Autowired
     private PortfolioRepository portfolioRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public PortfolioDTO getPortfolioWithPrices(User user){
         Portfolio portfolio = portfolioRepository.findByUser(user);
         if (portfolio == null || portfolio.getStocks().isEmpty()){
@@ -45,6 +50,11 @@ public class PortfolioService {
             PortfolioDTO.StockPosition position = new PortfolioDTO.StockPosition();
             position.setSymbol(symbol);
             position.setShares(shares);
+            // No quote yet (e.g. the upstream budget ran out): list the holding without a price or value
+            if (price == null) {
+                positions.add(position);
+                continue;
+            }
             position.setCurrentPrice(price.getCurrentPrice());
             position.setTotalValue(price.getCurrentPrice().multiply(shares));
             position.setDailyChange(price.getDailyChange());
@@ -57,7 +67,8 @@ public class PortfolioService {
         dto.setStocks(positions);
         dto.setTotalValue(totalValue);
         dto.setDailyChange(totalDailyChange);
-        dto.setDailyChangePercent(totalDailyChange.divide(totalValue, 4, RoundingMode.HALF_UP).multiply(new BigDecimal(100)));
+        dto.setDailyChangePercent(totalValue.signum() == 0 ? BigDecimal.ZERO
+                : totalDailyChange.divide(totalValue, 4, RoundingMode.HALF_UP).multiply(new BigDecimal(100)));
         return dto;
     }
 
@@ -113,6 +124,7 @@ public class PortfolioService {
         stocks.merge(symbol.toUpperCase(), shares, BigDecimal::add);
 
         portfolioRepository.save(portfolio);
+        changed(user);
     }
 
     @Transactional
@@ -128,6 +140,7 @@ public class PortfolioService {
 
         portfolio.getStocks().put(symbol.toUpperCase(), shares);
         portfolioRepository.save(portfolio);
+        changed(user);
     }
 
     @Transactional
@@ -139,5 +152,10 @@ public class PortfolioService {
 
         portfolio.getStocks().remove(symbol.toUpperCase());
         portfolioRepository.save(portfolio);
+        changed(user);
+    }
+
+    private void changed(User user) {
+        eventPublisher.publishEvent(new UserDataChangedEvent(user.getId(), UserDataChangedEvent.Kind.PORTFOLIO));
     }
 }
@@ -0,0 +1,287 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.exception.StockDataException;
+import com.jfallon.finance_app.model.Stock;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Quotes per symbol with their own expiry. A read past the refresh point still returns the cached quote and starts a
+// background reload; a quote past expiry is served stale (up to maxStale) while it reloads. Only a symbol that was
+// never loaded, or is too stale to show, makes the caller wait, and concurrent waiters for a symbol share one load.
+// After a failed load such a symbol fails fast until the failure backoff has passed, instead of calling upstream again.
+@Service
+public class QuoteCache {
+    // refresh is true when nobody is waiting on the result, so the load can go at a lower priority
+    @FunctionalInterface
+    public interface Loader {
+        Stock load(String symbol, boolean refresh);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(QuoteCache.class);
+
+    private final long ttlMillis;
+    private final long refreshAheadMillis;
+    private final long maxStaleMillis;
+    private final long failureBackoffMillis;
+    private final long loadTimeoutMillis;
+    private final int maxEntries;
+    private final ExecutorService refresher;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Stock>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Long> failedUntil = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong backoffRejections = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public QuoteCache(
+            @Value("${quotes.cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${quotes.cache.refresh-ahead-seconds:60}") long refreshAheadSeconds,
+            @Value("${quotes.cache.max-stale-seconds:3600}") long maxStaleSeconds,
+            @Value("${quotes.cache.failure-backoff-seconds:30}") long failureBackoffSeconds,
+            @Value("${quotes.cache.load-timeout-seconds:30}") long loadTimeoutSeconds,
+            @Value("${quotes.cache.max-entries:10000}") int maxEntries,
+            @Value("${quotes.cache.refresh-threads:2}") int refreshThreads) {
+        this.ttlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+        this.refreshAheadMillis = Duration.ofSeconds(refreshAheadSeconds).toMillis();
+        this.maxStaleMillis = Duration.ofSeconds(maxStaleSeconds).toMillis();
+        this.failureBackoffMillis = Duration.ofSeconds(failureBackoffSeconds).toMillis();
+        this.loadTimeoutMillis = Duration.ofSeconds(loadTimeoutSeconds).toMillis();
+        this.maxEntries = maxEntries;
+        AtomicInteger threads = new AtomicInteger();
+        this.refresher = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "quote-refresh-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    public Stock get(String symbol, Loader loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(symbol);
+        if (entry != null && now < entry.expiresAt + maxStaleMillis) {
+            entry.lastAccess = now;
+            if (now < entry.expiresAt) {
+                hits.incrementAndGet();
+            } else {
+                staleHits.incrementAndGet();
+            }
+            if (now >= entry.refreshAt) {
+                refreshAsync(symbol, loader);
+            }
+            return entry.stock;
+        }
+
+        misses.incrementAndGet();
+        Long retryAt = failedUntil.get(symbol);
+        if (retryAt != null) {
+            if (now < retryAt) {
+                backoffRejections.incrementAndGet();
+                throw new StockDataException("Quote for symbol " + symbol + " is unavailable, retrying shortly");
+            }
+            failedUntil.remove(symbol, retryAt);
+        }
+        CompletableFuture<Stock> load = new CompletableFuture<>();
+        CompletableFuture<Stock> running = inFlight.putIfAbsent(symbol, load);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return await(symbol, running);
+        }
+        // This caller owns the load and runs it on its own thread
+        complete(symbol, load, loader, false);
+        return await(symbol, load);
+    }
+
+    // Reloads in the background regardless of expiry; a load already running for the symbol is reused
+    public CompletableFuture<Stock> refresh(String symbol, Loader loader) {
+        CompletableFuture<Stock> load = new CompletableFuture<>();
+        CompletableFuture<Stock> running = inFlight.putIfAbsent(symbol, load);
+        if (running != null) {
+            return running;
+        }
+        refreshes.incrementAndGet();
+        try {
+            refresher.execute(() -> complete(symbol, load, loader, true));
+        } catch (RuntimeException e) {
+            inFlight.remove(symbol, load);
+            load.completeExceptionally(e);
+        }
+        return load;
+    }
+
+    public Stock getIfPresent(String symbol) {
+        Entry entry = entries.get(symbol);
+        return entry != null && System.currentTimeMillis() < entry.expiresAt + maxStaleMillis ? entry.stock : null;
+    }
+
+    // True when the symbol has no quote or its quote is inside the refresh-ahead window
+    public boolean isDue(String symbol) {
+        Entry entry = entries.get(symbol);
+        return entry == null || System.currentTimeMillis() >= entry.refreshAt;
+    }
+
+    // When a caller last read the symbol, or 0 if it isn't cached
+    public long lastAccess(String symbol) {
+        Entry entry = entries.get(symbol);
+        return entry == null ? 0 : entry.lastAccess;
+    }
+
+    // Milliseconds since the quote was loaded, or -1 if there is none
+    public long age(String symbol) {
+        Entry entry = entries.get(symbol);
+        return entry == null ? -1 : System.currentTimeMillis() - entry.loadedAt;
+    }
+
+    public Map<String, Object> metrics() {
+        long hitCount = hits.get() + staleHits.get();
+        long missCount = misses.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("entries", entries.size());
+        metrics.put("maxEntries", maxEntries);
+        metrics.put("inFlight", inFlight.size());
+        metrics.put("hits", hits.get());
+        metrics.put("staleHits", staleHits.get());
+        metrics.put("misses", missCount);
+        metrics.put("hitRatio", hitCount + missCount == 0 ? 0d : (double) hitCount / (hitCount + missCount));
+        metrics.put("coalesced", coalesced.get());
+        metrics.put("loads", loads.get());
+        metrics.put("loadFailures", loadFailures.get());
+        metrics.put("backoffRejections", backoffRejections.get());
+        metrics.put("refreshes", refreshes.get());
+        metrics.put("evictions", evictions.get());
+        return metrics;
+    }
+
+    private void refreshAsync(String symbol, Loader loader) {
+        if (!inFlight.containsKey(symbol)) {
+            refresh(symbol, loader);
+        }
+    }
+
+    // Waiters block on the future, so it is completed on every path, errors included
+    private void complete(String symbol, CompletableFuture<Stock> load, Loader loader, boolean refresh) {
+        Stock stock = null;
+        Throwable failure = null;
+        try {
+            loads.incrementAndGet();
+            stock = loader.load(symbol, refresh);
+            if (stock == null) {
+                throw new StockDataException("No quote returned for symbol: " + symbol);
+            }
+            store(symbol, stock);
+            failedUntil.remove(symbol);
+        } catch (Throwable e) {
+            failure = e;
+            loadFailures.incrementAndGet();
+            // Keep serving what we have and don't retry on every read while the upstream is failing
+            long retryAt = System.currentTimeMillis() + failureBackoffMillis;
+            Entry stale = entries.get(symbol);
+            if (stale != null) {
+                stale.refreshAt = retryAt;
+            }
+            failedUntil.put(symbol, retryAt);
+            if (failedUntil.size() > maxEntries) {
+                long now = System.currentTimeMillis();
+                failedUntil.values().removeIf(until -> until <= now);
+            }
+            logger.debug("Quote load failed for {}", symbol, e);
+        } finally {
+            inFlight.remove(symbol, load);
+            if (failure == null && stock != null) {
+                load.complete(stock);
+            } else {
+                load.completeExceptionally(failure != null ? failure
+                        : new StockDataException("Quote load did not finish for symbol: " + symbol));
+            }
+        }
+    }
+
+    private void store(String symbol, Stock stock) {
+        long now = System.currentTimeMillis();
+        // Jitter spreads the expiry of quotes loaded together so they don't all come due in the same instant
+        long ttl = ttlMillis + ThreadLocalRandom.current().nextLong(ttlMillis / 10 + 1);
+        Entry previous = entries.put(symbol, new Entry(stock, now, now + ttl, now + Math.max(0, ttl - refreshAheadMillis),
+                previousAccess(symbol, now)));
+        if (previous == null && entries.size() > maxEntries) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    private long previousAccess(String symbol, long now) {
+        Entry entry = entries.get(symbol);
+        return entry != null ? entry.lastAccess : now;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        entries.entrySet().stream()
+                .min(Comparator.comparingLong(candidate -> candidate.getValue().lastAccess))
+                .ifPresent(eldest -> {
+                    if (entries.remove(eldest.getKey(), eldest.getValue())) {
+                        evictions.incrementAndGet();
+                    }
+                });
+    }
+
+    // The load keeps running after a waiter gives up; a later read can still pick up its result
+    private Stock await(String symbol, CompletableFuture<Stock> load) {
+        try {
+            return load.get(loadTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new StockDataException("Timed out waiting for quote for symbol: " + symbol);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StockDataException("Interrupted waiting for quote for symbol: " + symbol);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new StockDataException("Failed to load quote for symbol: " + symbol, e.getCause());
+        }
+    }
+
+    private static final class Entry {
+        private final Stock stock;
+        private final long loadedAt;
+        private final long expiresAt;
+        private volatile long refreshAt;
+        private volatile long lastAccess;
+
+        private Entry(Stock stock, long loadedAt, long expiresAt, long refreshAt, long lastAccess) {
+            this.stock = stock;
+            this.loadedAt = loadedAt;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.model.Stock;
+
+// Source of upstream quotes behind StockService; the implementation is chosen with quote.provider
+public interface QuoteProvider {
+
+    // Throws StockDataException when no valid quote can be returned
+    Stock fetchQuote(String symbol);
+
+    // Whether calls spend the shared AlphaVantage budget and must go through QuoteRateLimiter
+    default boolean isRateLimited() {
+        return true;
+    }
+}
@@ -0,0 +1,138 @@
+package com.jfallon.finance_app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+// The AlphaVantage plan limits (per minute and per day) shared by every upstream quote call in the JVM. The minute
+// limit is a sliding window over the last grants, so no 60 seconds ever see more than the plan allows; the daily
+// limit is a fixed window that resets at midnight US/Eastern, as AlphaVantage's does.
+// Callers queue by priority and then arrival order; the head of the queue takes the next call as soon as both
+// windows have room. Non-interactive callers leave a slice of the daily budget for users waiting on a page.
+// The counts live in this JVM only: a restart starts a fresh day and every instance of the app has its own budget.
+@Service
+public class QuoteRateLimiter {
+    public enum Priority {
+        // A user is waiting on the response
+        INTERACTIVE,
+        // Refresh-ahead of a quote someone just read
+        REFRESH,
+        // Scheduled warming
+        BACKGROUND
+    }
+
+    private static final ZoneId PROVIDER_ZONE = ZoneId.of("America/New_York");
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int perMinute;
+    private final int perDay;
+    private final double interactiveReserve;
+
+    // All guarded by "this"
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence));
+    private long sequence;
+    // nanoTime of each grant in the last minute, oldest first
+    private final Deque<Long> minuteGrants = new ArrayDeque<>();
+    private long dayUsed;
+    private long dayEndsAtMillis;
+    private final Map<Priority, Long> granted = new HashMap<>();
+    private final Map<Priority, Long> timedOut = new HashMap<>();
+
+    public QuoteRateLimiter(
+            @Value("${alphavantage.rate.per-minute:5}") int perMinute,
+            @Value("${alphavantage.rate.per-day:500}") int perDay,
+            @Value("${alphavantage.rate.interactive-reserve:0.2}") double interactiveReserve) {
+        this.perMinute = perMinute;
+        this.perDay = perDay;
+        this.interactiveReserve = perDay * interactiveReserve;
+        this.dayEndsAtMillis = nextProviderMidnight(System.currentTimeMillis());
+    }
+
+    // Waits up to the timeout for room in both windows; false means the caller should not call upstream
+    public synchronized boolean acquire(Priority priority, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Waiter waiter = new Waiter(priority, sequence++);
+        waiters.add(waiter);
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                advance(now);
+                if (waiters.peek() == waiter && available(priority)) {
+                    minuteGrants.addLast(now);
+                    dayUsed++;
+                    granted.merge(priority, 1L, Long::sum);
+                    return true;
+                }
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    timedOut.merge(priority, 1L, Long::sum);
+                    return false;
+                }
+                // Only the head can be served next; everyone else sleeps until the head changes
+                long sleep = waiters.peek() == waiter ? Math.min(remaining, untilAvailable(priority, now)) : remaining;
+                TimeUnit.NANOSECONDS.timedWait(this, Math.max(sleep, TimeUnit.MILLISECONDS.toNanos(1)));
+            }
+        } finally {
+            waiters.remove(waiter);
+            notifyAll();
+        }
+    }
+
+    public synchronized Map<String, Object> metrics() {
+        advance(System.nanoTime());
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("minuteRemaining", perMinute - minuteGrants.size());
+        metrics.put("dayRemaining", perDay - dayUsed);
+        metrics.put("dayResetsAt", Instant.ofEpochMilli(dayEndsAtMillis).toString());
+        metrics.put("waiting", waiters.size());
+        metrics.put("granted", new HashMap<>(granted));
+        metrics.put("timedOut", new HashMap<>(timedOut));
+        return metrics;
+    }
+
+    // Forgets grants older than a minute and starts a new day once the provider's midnight has passed
+    private void advance(long now) {
+        while (!minuteGrants.isEmpty() && now - minuteGrants.peekFirst() >= MINUTE_NANOS) {
+            minuteGrants.removeFirst();
+        }
+        long wallClock = System.currentTimeMillis();
+        if (wallClock >= dayEndsAtMillis) {
+            dayUsed = 0;
+            dayEndsAtMillis = nextProviderMidnight(wallClock);
+        }
+    }
+
+    private boolean available(Priority priority) {
+        return minuteGrants.size() < perMinute && perDay - dayUsed >= dayFloor(priority);
+    }
+
+    private long untilAvailable(Priority priority, long now) {
+        long minuteWait = minuteGrants.size() < perMinute ? 0 : minuteGrants.peekFirst() + MINUTE_NANOS - now;
+        long dayWait = perDay - dayUsed >= dayFloor(priority)
+                ? 0 : TimeUnit.MILLISECONDS.toNanos(dayEndsAtMillis - System.currentTimeMillis());
+        return Math.max(minuteWait, dayWait);
+    }
+
+    private double dayFloor(Priority priority) {
+        return priority == Priority.INTERACTIVE ? 1 : 1 + interactiveReserve;
+    }
+
+    private static long nextProviderMidnight(long epochMillis) {
+        LocalDate today = Instant.ofEpochMilli(epochMillis).atZone(PROVIDER_ZONE).toLocalDate();
+        return today.plusDays(1).atStartOfDay(PROVIDER_ZONE).toInstant().toEpochMilli();
+    }
+
+    private record Waiter(Priority priority, long sequence) {
+    }
+}
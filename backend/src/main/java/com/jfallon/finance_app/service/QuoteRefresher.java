@@ -0,0 +1,75 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.repository.PortfolioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+
+// Keeps the quotes people hold warm so portfolio reads rarely wait on AlphaVantage. Each run ranks every held
+// symbol by how many portfolios hold it, weighted by how recently anyone read it, and reloads the top few that are
+// missing or due. Loads go out at BACKGROUND priority, so they only use budget interactive reads leave over.
+@Service
+public class QuoteRefresher {
+    private static final Logger logger = LoggerFactory.getLogger(QuoteRefresher.class);
+    // Symbols nobody has read since startup still get a share of the budget, scaled by their holders
+    private static final double UNREAD_WEIGHT = 0.1;
+
+    private final PortfolioRepository portfolioRepository;
+    private final StockService stockService;
+    private final QuoteCache quoteCache;
+    private final boolean enabled;
+    private final int maxPerRun;
+    private final double halfLifeMillis;
+
+    public QuoteRefresher(
+            PortfolioRepository portfolioRepository,
+            StockService stockService,
+            QuoteCache quoteCache,
+            @Value("${quotes.refresher.enabled:true}") boolean enabled,
+            @Value("${quotes.refresher.max-per-run:2}") int maxPerRun,
+            @Value("${quotes.refresher.recency-half-life-minutes:60}") long halfLifeMinutes) {
+        this.portfolioRepository = portfolioRepository;
+        this.stockService = stockService;
+        this.quoteCache = quoteCache;
+        this.enabled = enabled;
+        this.maxPerRun = maxPerRun;
+        this.halfLifeMillis = Duration.ofMinutes(halfLifeMinutes).toMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${quotes.refresher.interval-ms:60000}", initialDelayString = "${quotes.refresher.initial-delay-ms:30000}")
+    public void refreshHeldSymbols() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<String> due = portfolioRepository.countHoldersBySymbol().stream()
+                .filter(held -> held.getSymbol() != null && !held.getSymbol().isBlank())
+                .filter(held -> quoteCache.isDue(held.getSymbol()))
+                .sorted(Comparator.comparingDouble((PortfolioRepository.SymbolHolders held) -> score(held, now)).reversed())
+                .limit(maxPerRun)
+                .map(PortfolioRepository.SymbolHolders::getSymbol)
+                .toList();
+
+        for (String symbol : due) {
+            stockService.warmStockPrice(symbol).exceptionally(e -> {
+                logger.debug("Background refresh of {} failed", symbol, e);
+                return null;
+            });
+        }
+        if (!due.isEmpty()) {
+            logger.debug("Refreshing held symbols {}", due);
+        }
+    }
+
+    private double score(PortfolioRepository.SymbolHolders held, long now) {
+        long lastAccess = quoteCache.lastAccess(held.getSymbol());
+        double recency = lastAccess == 0 ? 0 : Math.pow(0.5, (now - lastAccess) / halfLifeMillis);
+        return held.getHolders() * (UNREAD_WEIGHT + recency);
+    }
+}
@@ -0,0 +1,153 @@
+package com.jfallon.finance_app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jfallon.finance_app.dto.AlphaVantageResponse;
+import com.jfallon.finance_app.exception.StockDataException;
+import com.jfallon.finance_app.model.Stock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Offline quotes for load tests and benchmarks (quote.provider=replay). Recorded GLOBAL_QUOTE responses are read
+// from <directory>/<SYMBOL>.json, either one response or an array replayed in order and then from the start;
+// symbols without a file get a generated quote. Latency and failures are injected from a seeded random per
+// (symbol, call number), so the same run sees the same prices, delays and errors.
+@Service
+@ConditionalOnProperty(name = "quote.provider", havingValue = "replay")
+public class ReplayQuoteProvider implements QuoteProvider {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayQuoteProvider.class);
+
+    private final Map<String, List<Stock>> recorded;
+    private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+    private final long seed;
+    private final long latencyMillis;
+    private final long latencyJitterMillis;
+    private final double errorRate;
+    private final boolean generateMissing;
+
+    public ReplayQuoteProvider(
+            ObjectMapper objectMapper,
+            @Value("${quote.replay.directory:replay/quotes}") String directory,
+            @Value("${quote.replay.seed:42}") long seed,
+            @Value("${quote.replay.latency-ms:0}") long latencyMillis,
+            @Value("${quote.replay.latency-jitter-ms:0}") long latencyJitterMillis,
+            @Value("${quote.replay.error-rate:0}") double errorRate,
+            @Value("${quote.replay.generate-missing:true}") boolean generateMissing) {
+        this.seed = seed;
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+        this.errorRate = errorRate;
+        this.generateMissing = generateMissing;
+        this.recorded = load(objectMapper, Path.of(directory));
+        logger.info("Replaying quotes for {} recorded symbols from {} (latency {}+{} ms, error rate {})",
+                recorded.size(), directory, latencyMillis, latencyJitterMillis, errorRate);
+    }
+
+    @Override
+    public Stock fetchQuote(String symbol) {
+        long call = calls.computeIfAbsent(symbol, key -> new AtomicLong()).getAndIncrement();
+        Random random = new Random(mix(symbol, call));
+
+        long delay = latencyMillis + (latencyJitterMillis > 0 ? (long) (random.nextDouble() * (latencyJitterMillis + 1)) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StockDataException("Interrupted while replaying quote for symbol: " + symbol, e);
+            }
+        }
+        if (random.nextDouble() < errorRate) {
+            throw new StockDataException("Injected replay failure for symbol: " + symbol);
+        }
+
+        List<Stock> quotes = recorded.get(symbol);
+        if (quotes != null) {
+            return quotes.get((int) (call % quotes.size()));
+        }
+        if (!generateMissing) {
+            throw new StockDataException("No recorded quote for symbol: " + symbol);
+        }
+        return generate(symbol, random);
+    }
+
+    // Replayed calls cost nothing upstream, so they skip the AlphaVantage budget and measure the app alone
+    @Override
+    public boolean isRateLimited() {
+        return false;
+    }
+
+    // A stable base price per symbol and a normally distributed daily move per call
+    private Stock generate(String symbol, Random random) {
+        Random base = new Random(seed ^ symbol.hashCode());
+        BigDecimal previousClose = BigDecimal.valueOf(10 + base.nextDouble() * 490).setScale(2, RoundingMode.HALF_UP);
+        double percent = Math.max(-10, Math.min(10, random.nextGaussian() * 1.5));
+        BigDecimal price = previousClose.multiply(BigDecimal.valueOf(1 + percent / 100)).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal change = price.subtract(previousClose);
+
+        Stock stock = new Stock();
+        stock.setSymbol(symbol);
+        stock.setCurrentPrice(price);
+        stock.setPreviousClose(previousClose);
+        stock.setDailyChange(change);
+        stock.setDailyChangePercent(change.multiply(BigDecimal.valueOf(100)).divide(previousClose, 4, RoundingMode.HALF_UP));
+        stock.setOpen(previousClose);
+        stock.setHigh(price.max(previousClose));
+        stock.setLow(price.min(previousClose));
+        stock.setVolume(100_000L + base.nextInt(10_000_000));
+        stock.setLatestTradingDay(LocalDate.now());
+        return stock;
+    }
+
+    private long mix(String symbol, long call) {
+        return seed * 1_000_003L + symbol.hashCode() * 31L + call;
+    }
+
+    private static Map<String, List<Stock>> load(ObjectMapper objectMapper, Path directory) {
+        Map<String, List<Stock>> quotes = new HashMap<>();
+        if (!Files.isDirectory(directory)) {
+            logger.warn("Quote replay directory {} not found, all quotes will be generated", directory);
+            return quotes;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String symbol = name.substring(0, name.length() - ".json".length()).toUpperCase(Locale.ROOT);
+                JsonNode root = objectMapper.readTree(file.toFile());
+                List<Stock> sequence = new ArrayList<>();
+                for (JsonNode node : root.isArray() ? root : List.of(root)) {
+                    AlphaVantageResponse response = objectMapper.treeToValue(node, AlphaVantageResponse.class);
+                    if (response.getGlobalQuote() == null) {
+                        throw new StockDataException("No \"Global Quote\" in replay file " + file);
+                    }
+                    sequence.add(AlphaVantageQuoteProvider.mapToStockPrice(response.getGlobalQuote()));
+                }
+                if (!sequence.isEmpty()) {
+                    quotes.put(symbol, List.copyOf(sequence));
+                }
+            }
+        } catch (IOException e) {
+            throw new StockDataException("Failed to read quote replay directory " + directory, e);
+        }
+        return quotes;
+    }
+}
@@ -0,0 +1,172 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.ImportResult;
+import com.jfallon.finance_app.dto.StatementFormat;
+import com.jfallon.finance_app.dto.StatementRow;
+import com.jfallon.finance_app.model.Expense;
+import com.jfallon.finance_app.model.Income;
+import com.jfallon.finance_app.model.Transaction;
+import com.jfallon.finance_app.userauth.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streams a bank statement into Expense/Income rows plus their ledger Transactions.
+// Rows are written in chunks, each chunk in its own transaction with JDBC batching and a single balance/rollup update.
+@Service
+public class StatementImportService {
+    private static final Logger logger = LoggerFactory.getLogger(StatementImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private final TransactionService transactionService;
+    private final CategoryService categoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public StatementImportService(
+            TransactionService transactionService,
+            CategoryService categoryService,
+            PlatformTransactionManager transactionManager,
+            @Value("${import.batch-size:1000}") int batchSize) {
+        this.transactionService = transactionService;
+        this.categoryService = categoryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public ImportResult importStatement(User user, InputStream input, StatementFormat format) throws IOException {
+        long started = System.nanoTime();
+        ImportResult result = new ImportResult();
+        result.setFormat(format);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+        try (StatementParser parser = format == StatementFormat.OFX
+                ? new OfxStatementParser(reader)
+                : new CsvStatementParser(reader)) {
+            List<StatementRow> batch = new ArrayList<>(batchSize);
+            StatementRow row;
+            while ((row = parser.next()) != null) {
+                result.setRowsRead(result.getRowsRead() + 1);
+                if (row.getError() != null) {
+                    recordError(result, row.getLineNumber(), row.getError());
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    writeBatch(user, batch, result);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(user, batch, result);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        result.setElapsedMillis(elapsedNanos / 1_000_000);
+        result.setRowsPerSecond(elapsedNanos == 0 ? 0 : result.getRowsImported() * 1_000_000_000d / elapsedNanos);
+        logger.info("Imported {} of {} {} rows for user {} in {} ms ({} rows/s)", result.getRowsImported(),
+                result.getRowsRead(), format, user.getId(), result.getElapsedMillis(), Math.round(result.getRowsPerSecond()));
+        return result;
+    }
+
+    private void writeBatch(User user, List<StatementRow> rows, ImportResult result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                User owner = entityManager.getReference(User.class, user.getId());
+                List<Transaction> ledger = new ArrayList<>(rows.size());
+                for (StatementRow row : rows) {
+                    ledger.add(persistEntry(owner, row));
+                }
+                transactionService.createTransactions(owner, ledger);
+
+                // Push the batched inserts and drop the chunk from the persistence context so memory stays flat
+                entityManager.flush();
+                entityManager.clear();
+            });
+            result.setRowsImported(result.getRowsImported() + rows.size());
+        } catch (RuntimeException e) {
+            // The database doesn't say which row of a batch it rejected, so replay the chunk row by row to find out.
+            // The cause is logged rather than reported, since it carries SQL and constraint names.
+            if (rows.size() > 1) {
+                logger.warn("Statement import chunk of {} rows failed for user {}, retrying row by row", rows.size(), user.getId(), e);
+                for (StatementRow row : rows) {
+                    writeBatch(user, List.of(row), result);
+                }
+            } else {
+                logger.warn("Statement import of line {} failed for user {}", rows.get(0).getLineNumber(), user.getId(), e);
+                recordError(result, rows.get(0).getLineNumber(), "Row could not be saved");
+            }
+        }
+    }
+
+    // Ids come from the pooled sequence at persist time, so the ledger row can reference them before the flush
+    private Transaction persistEntry(User owner, StatementRow row) {
+        String category = row.getCategory() != null ? row.getCategory() : "Uncategorized";
+        Transaction transaction = new Transaction();
+        transaction.setUser(owner);
+        transaction.setType(row.getType());
+        transaction.setCategory(category);
+        transaction.setAmount(row.getAmount().abs());
+        transaction.setTransactionDate(row.getDate());
+
+        if ("EXPENSE".equals(row.getType())) {
+            Expense expense = new Expense();
+            expense.setUser(owner);
+            expense.setCategory(category);
+            expense.setAmount(row.getAmount().abs());
+            expense.setFrequency("ONE_TIME");
+            expense.setStartDate(row.getDate());
+            categoryService.assign(expense);
+            entityManager.persist(expense);
+
+            transaction.setReferenceType("EXPENSE");
+            transaction.setReferenceId(expense.getId());
+            transaction.setDescription(describe(row));
+        } else {
+            Income income = new Income();
+            income.setUser(owner);
+            income.setType(category);
+            income.setAmount(row.getAmount().abs());
+            income.setFrequency("ONE_TIME");
+            income.setStartDate(row.getDate());
+            entityManager.persist(income);
+
+            transaction.setReferenceType("INCOME");
+            transaction.setReferenceId(income.getId());
+            transaction.setDescription(describe(row));
+        }
+        return transaction;
+    }
+
+    // Without a memo the row is described from its category on read, like any other mirrored entry
+    private String describe(StatementRow row) {
+        String description = row.getDescription();
+        return description == null || description.length() <= MAX_DESCRIPTION_LENGTH ? description : description.substring(0, MAX_DESCRIPTION_LENGTH);
+    }
+
+    private void recordError(ImportResult result, long line, String message) {
+        result.setRowsFailed(result.getRowsFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new ImportResult.RowError(line, message));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.dto.StatementRow;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Pull parser over a bank statement; implementations read incrementally and never hold the whole file
+public interface StatementParser extends Closeable {
+    // Returns the next row (possibly a failed one), or null once the statement is exhausted
+    StatementRow next() throws IOException;
+}
@@ -1,77 +1,79 @@
 package com.jfallon.finance_app.service;
 
 import com.jfallon.finance_app.model.Stock;
-import com.jfallon.finance_app.dto.AlphaVantageResponse;
 import com.jfallon.finance_app.exception.StockDataException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestClientException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
 
 @Service
 public class StockService {
     private static final Logger logger = LoggerFactory.getLogger(StockService.class);
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final int BATCH_SIZE = 5; // AlphaVantage has rate limits
-    private static final long API_CALL_DELAY = 1000; // 1 second delay between API calls
-
-    private final RestTemplate restTemplate;
-    private final String apiKey;
+    private static final int FETCH_THREADS = 5;
+
+    private final QuoteProvider quoteProvider;
+    private final QuoteCache quoteCache;
+    private final QuoteRateLimiter rateLimiter;
+    private final long interactiveWaitMillis;
+    private final long refreshWaitMillis;
+    private final long backgroundWaitMillis;
     private final ExecutorService executorService;
 
     public StockService(
-            @Value("${alphavantage.api.key}") String apiKey) {
-        this.restTemplate = new RestTemplate();
-        this.apiKey = apiKey;
-        this.executorService = Executors.newFixedThreadPool(BATCH_SIZE);
+            QuoteProvider quoteProvider,
+            QuoteCache quoteCache,
+            QuoteRateLimiter rateLimiter,
+            @Value("${alphavantage.rate.interactive-wait-ms:15000}") long interactiveWaitMillis,
+            @Value("${alphavantage.rate.refresh-wait-ms:120000}") long refreshWaitMillis,
+            @Value("${alphavantage.rate.background-wait-ms:1000}") long backgroundWaitMillis) {
+        this.quoteProvider = quoteProvider;
+        this.quoteCache = quoteCache;
+        this.rateLimiter = rateLimiter;
+        this.interactiveWaitMillis = interactiveWaitMillis;
+        this.refreshWaitMillis = refreshWaitMillis;
+        this.backgroundWaitMillis = backgroundWaitMillis;
+        this.executorService = Executors.newFixedThreadPool(FETCH_THREADS);
     }
 
-    @Cacheable(value = "stockPrices", key = "#symbol", unless = "#result == null")
     public Stock getStockPrice(String symbol) {
-        logger.debug("Fetching stock price for symbol: {}", symbol);
-
         if (symbol == null || symbol.trim().isEmpty()) {
             throw new IllegalArgumentException("Stock symbol cannot be null or empty");
         }
+        return quoteCache.get(symbol.trim().toUpperCase(), (key, refresh) ->
+                fetchStockPrice(key, refresh ? QuoteRateLimiter.Priority.REFRESH : QuoteRateLimiter.Priority.INTERACTIVE));
+    }
 
-        String url = buildApiUrl(symbol);
+    // Background warming: reloads at the lowest priority whether or not anyone is reading the symbol
+    public CompletableFuture<Stock> warmStockPrice(String symbol) {
+        return quoteCache.refresh(symbol.trim().toUpperCase(),
+                (key, refresh) -> fetchStockPrice(key, QuoteRateLimiter.Priority.BACKGROUND));
+    }
 
+    // Every rate-limited upstream call goes through the shared limiter; cached reads never get here
+    private Stock fetchStockPrice(String symbol, QuoteRateLimiter.Priority priority) {
+        long wait = switch (priority) {
+            case INTERACTIVE -> interactiveWaitMillis;
+            case REFRESH -> refreshWaitMillis;
+            case BACKGROUND -> backgroundWaitMillis;
+        };
         try {
-            ResponseEntity<AlphaVantageResponse> response = restTemplate.getForEntity(
-                    url,
-                    AlphaVantageResponse.class
-            );
-
-            //Check for rate limit
-
-            return Optional.ofNullable(response.getBody())
-                    .map(AlphaVantageResponse::getGlobalQuote)
-                    .map(this::mapToStockPrice)
-                    .orElseThrow(() -> new StockDataException("Empty response received for symbol: " + symbol));
-
-        } catch (RestClientException e) {
-            logger.error("Failed to fetch stock data for symbol: {}", symbol, e);
-            throw new StockDataException("Failed to fetch stock data for symbol: " + symbol, e);
-        } catch (Exception e) {
-            logger.error("Unexpected error while processing stock data for symbol: {}", symbol, e);
-            throw new StockDataException("Error processing stock data for symbol: " + symbol, e);
+            if (quoteProvider.isRateLimited() && !rateLimiter.acquire(priority, wait)) {
+                throw new StockDataException("AlphaVantage rate limit reached, no quote for symbol: " + symbol);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StockDataException("Interrupted while waiting to fetch symbol: " + symbol, e);
         }
+
+        logger.debug("Fetching stock price for symbol: {}", symbol);
+        return quoteProvider.fetchQuote(symbol);
     }
 
     public Map<String, Stock> getBatchStockPrices(Set<String> symbols) {
@@ -81,101 +83,27 @@ public class StockService {
             return Collections.emptyMap();
         }
 
+        // Cached symbols are answered inline; only misses go to the pool, where the limiter paces them
         Map<String, Stock> prices = new ConcurrentHashMap<>();
-        List<List<String>> batches = createBatches(new ArrayList<>(symbols), BATCH_SIZE);
-
-        try {
-            for (List<String> batch : batches) {
-                List<CompletableFuture<Void>> futures = batch.stream()
-                        .map(symbol -> CompletableFuture.runAsync(() -> {
-                            try {
-                                Stock price = getStockPrice(symbol);
-                                prices.put(symbol, price);
-                                Thread.sleep(API_CALL_DELAY); // Respect API rate limits
-                            } catch (Exception e) {
-                                logger.error("Error fetching price for symbol: {}", symbol, e);
-                                prices.put(symbol, null); // Mark failed fetches
-                            }
-                        }, executorService))
-                        .collect(Collectors.toList());
-
-                // Wait for each batch to complete before starting the next
-                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (String symbol : symbols) {
+            if (symbol != null && quoteCache.getIfPresent(symbol.trim().toUpperCase()) != null) {
+                fetchInto(prices, symbol);
+            } else {
+                futures.add(CompletableFuture.runAsync(() -> fetchInto(prices, symbol), executorService));
             }
-        } catch (Exception e) {
-            logger.error("Error in batch processing", e);
-            throw new StockDataException("Failed to fetch batch stock prices", e);
         }
-
-        // Remove any null entries from failed fetches
-        prices.values().removeIf(Objects::isNull);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
         return prices;
     }
 
-    // Clear cache every 5 minutes
-    @Scheduled(fixedRate = 300000)
-    @CacheEvict(value = "stockPrices", allEntries = true)
-    public void clearStockPriceCache() {
-        logger.debug("Clearing stock price cache");
-    }
-
-    private String buildApiUrl(String symbol) {
-        return String.format(
-                "https://www.alphavantage.co/query?function=GLOBAL_QUOTE&symbol=%s&apikey=%s",
-                symbol.trim().toUpperCase(),
-                apiKey
-        );
-    }
-
-    private Stock mapToStockPrice(AlphaVantageResponse.GlobalQuote quote) {
+    // Failed symbols are left out of the result
+    private void fetchInto(Map<String, Stock> prices, String symbol) {
         try {
-            Stock stockPrice = new Stock();
-            stockPrice.setSymbol(quote.getSymbol());
-            stockPrice.setCurrentPrice(parseDecimal(quote.getPrice()));
-            stockPrice.setDailyChange(parseDecimal(quote.getChange()));
-            stockPrice.setDailyChangePercent(parseDecimal(quote.getChangePercent().replace("%", "")));
-            stockPrice.setPreviousClose(parseDecimal(quote.getPreviousClose()));
-            stockPrice.setVolume(Long.parseLong(quote.getVolume()));
-            stockPrice.setOpen(parseDecimal(quote.getOpen()));
-            stockPrice.setHigh(parseDecimal(quote.getHigh()));
-            stockPrice.setLow(parseDecimal(quote.getLow()));
-            stockPrice.setLatestTradingDay(LocalDate.parse(quote.getLatestTradingDay(), DATE_FORMATTER));
-
-            validateStockPrice(stockPrice);
-            return stockPrice;
-
-        } catch (NumberFormatException e) {
-            throw new StockDataException("Failed to parse numeric values from API response", e);
+            prices.put(symbol, getStockPrice(symbol));
         } catch (Exception e) {
-            throw new StockDataException("Failed to map API response to StockPrice", e);
-        }
-    }
-
-    private BigDecimal parseDecimal(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            throw new StockDataException("Received null or empty decimal value from API");
-        }
-        return new BigDecimal(value.trim());
-    }
-
-    private void validateStockPrice(Stock stockPrice) {
-        if (stockPrice.getCurrentPrice().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new StockDataException("Invalid current price: " + stockPrice.getCurrentPrice());
-        }
-        if (stockPrice.getVolume() <= 0) {
-            throw new StockDataException("Invalid volume: " + stockPrice.getVolume());
-        }
-        if (stockPrice.getLatestTradingDay() == null) {
-            throw new StockDataException("Missing latest trading day");
-        }
-    }
-
-    private <T> List<List<T>> createBatches(List<T> items, int batchSize) {
-        List<List<T>> batches = new ArrayList<>();
-        for (int i = 0; i < items.size(); i += batchSize) {
-            batches.add(items.subList(i, Math.min(items.size(), i + batchSize)));
+            logger.error("Error fetching price for symbol: {}", symbol, e);
         }
-        return batches;
     }
 
     // Cleanup method to shut down the executor service
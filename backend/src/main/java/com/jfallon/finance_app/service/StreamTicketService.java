@@ -0,0 +1,61 @@
+package com.jfallon.finance_app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// One-time tickets for opening /api/stream. EventSource can't send an Authorization header, so the client trades its
+// JWT for a ticket on an authenticated POST and puts only the ticket in the stream URL. A ticket opens one connection
+// within a few seconds of being issued and is useless for anything else, so a URL that ends up in a log is harmless.
+@Service
+public class StreamTicketService {
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    public StreamTicketService(@Value("${stream.ticket-ttl-seconds:30}") long ttlSeconds) {
+        this.ttlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+    }
+
+    public String issue(Authentication auth) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(auth.getName(), List.copyOf(auth.getAuthorities()),
+                System.currentTimeMillis() + ttlMillis));
+        return ticket;
+    }
+
+    public long getTtlSeconds() {
+        return Duration.ofMillis(ttlMillis).toSeconds();
+    }
+
+    // The ticket is spent whether or not it is still valid; null means it was unknown, used or expired
+    public Authentication redeem(String ticket) {
+        Ticket redeemed = ticket == null ? null : tickets.remove(ticket);
+        if (redeemed == null || System.currentTimeMillis() >= redeemed.expiresAt()) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(redeemed.email(), null, redeemed.authorities());
+    }
+
+    // Tickets that were issued but never used
+    @Scheduled(fixedDelayString = "${stream.ticket-purge-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        tickets.values().removeIf(ticket -> now >= ticket.expiresAt());
+    }
+
+    private record Ticket(String email, List<GrantedAuthority> authorities, long expiresAt) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.jfallon.finance_app.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jfallon.finance_app.dto.ExportFormat;
+import com.jfallon.finance_app.model.Transaction;
+import com.jfallon.finance_app.repository.TransactionRepository;
+import com.jfallon.finance_app.userauth.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+// Writes a user's full ledger row by row from a database cursor; heap use does not grow with the number of rows
+@Service
+public class TransactionExportService {
+    private static final String CSV_HEADER = "id,date,type,category,amount,description,reference_type,reference_id\n";
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate readOnlyTemplate;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public TransactionExportService(
+            TransactionRepository transactionRepository,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+    }
+
+    public void export(User user, ExportFormat format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            JsonGenerator json = format == ExportFormat.NDJSON
+                    ? objectMapper.getFactory().createGenerator(writer).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    : null;
+
+            // The cursor only stays open inside a transaction, so the whole write runs in one read-only transaction
+            readOnlyTemplate.executeWithoutResult(status -> {
+                try (Stream<Transaction> transactions = transactionRepository.streamByUser(user)) {
+                    transactions.forEach(transaction -> {
+                        try {
+                            if (json != null) {
+                                writeJson(json, transaction);
+                            } else {
+                                writeCsv(writer, transaction);
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        entityManager.detach(transaction);
+                    });
+                }
+            });
+
+            if (json != null) {
+                json.flush();
+            }
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeJson(JsonGenerator json, Transaction transaction) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", transaction.getId());
+        json.writeStringField("date", transaction.getTransactionDate().toString());
+        json.writeStringField("type", transaction.getType());
+        json.writeStringField("category", transaction.getCategory());
+        json.writeNumberField("amount", transaction.getAmount());
+        json.writeStringField("description", transaction.getDescription());
+        json.writeStringField("referenceType", transaction.getReferenceType());
+        if (transaction.getReferenceId() != null) {
+            json.writeNumberField("referenceId", transaction.getReferenceId());
+        } else {
+            json.writeNullField("referenceId");
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeCsv(Writer writer, Transaction transaction) throws IOException {
+        writer.write(String.valueOf(transaction.getId()));
+        writer.write(',');
+        writer.write(transaction.getTransactionDate().toString());
+        writer.write(',');
+        writer.write(csv(transaction.getType()));
+        writer.write(',');
+        writer.write(csv(transaction.getCategory()));
+        writer.write(',');
+        writer.write(transaction.getAmount().toPlainString());
+        writer.write(',');
+        writer.write(csv(transaction.getDescription()));
+        writer.write(',');
+        writer.write(csv(transaction.getReferenceType()));
+        writer.write(',');
+        writer.write(transaction.getReferenceId() == null ? "" : String.valueOf(transaction.getReferenceId()));
+        writer.write('\n');
+    }
+
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,38 @@
+package com.jfallon.finance_app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+
+// Keeps monthly partitions of the transactions table created ahead of time. Old months stay attached: the balance,
+// the monthly rollup, snapshots and reconciliation all count every ledger row.
+@Service
+public class TransactionPartitionService {
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+
+    public TransactionPartitionService(
+            JdbcTemplate jdbcTemplate,
+            @Value("${transactions.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${transactions.partitions.maintenance-cron:0 0 2 * * *}")
+    public void maintainPartitions() {
+        ensurePartitions(YearMonth.now(), monthsAhead);
+    }
+
+    public void ensurePartitions(YearMonth from, int months) {
+        for (int i = 0; i <= months; i++) {
+            jdbcTemplate.queryForObject("SELECT create_transactions_partition(?)", Object.class,
+                    java.sql.Date.valueOf(from.plusMonths(i).atDay(1)));
+        }
+    }
+}
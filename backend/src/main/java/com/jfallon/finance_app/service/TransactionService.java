@@ -1,5 +1,8 @@
 package com.jfallon.finance_app.service;
 
+import com.jfallon.finance_app.dto.Granularity;
+import com.jfallon.finance_app.dto.TransactionHistoryPage;
+import com.jfallon.finance_app.dto.TransactionHistoryQuery;
 import com.jfallon.finance_app.model.Expense;
 import com.jfallon.finance_app.model.Income;
 import com.jfallon.finance_app.model.Transaction;
@@ -10,45 +13,92 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    public static final int MAX_TREND_MONTHS = 120;
+
     private final TransactionRepository transactionRepository;
     private final BalanceService balanceService;
+    private final MonthlyCategoryTotalService monthlyCategoryTotalService;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final CategoryService categoryService;
+
+    public static BigDecimal signedAmount(String type, BigDecimal amount) {
+        return "EXPENSE".equals(type) ? amount.negate() : amount;
+    }
 
     @Transactional
     public Transaction createTransaction(Transaction transaction) {
+        categoryService.assign(transaction);
+        // Apply the delta before inserting so a balance seeded from the ledger on first use doesn't count this row twice
+        balanceService.applyDelta(transaction.getUser(), signedAmount(transaction.getType(), transaction.getAmount()));
         Transaction savedTransaction = transactionRepository.save(transaction);
+        monthlyCategoryTotalService.recordCreated(savedTransaction);
+        balanceSnapshotService.invalidateFrom(savedTransaction.getUser(), savedTransaction.getTransactionDate());
         return savedTransaction;
     }
 
+    // Bulk variant for a single user's rows: one balance update and one rollup upsert per bucket instead of per row
+    @Transactional
+    public List<Transaction> createTransactions(User user, List<Transaction> transactions) {
+        BigDecimal delta = transactions.stream()
+                .map(transaction -> signedAmount(transaction.getType(), transaction.getAmount()))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        balanceService.applyDelta(user, delta);
+        transactions.forEach(categoryService::assign);
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        monthlyCategoryTotalService.recordCreated(user, saved);
+        saved.stream()
+                .map(Transaction::getTransactionDate)
+                .min(LocalDateTime::compareTo)
+                .ifPresent(earliest -> balanceSnapshotService.invalidateFrom(user, earliest));
+        return saved;
+    }
+
+    // The mirror follows the entry's start date; an edit without one keeps the date it was booked on
     @Transactional
     public void updateTransactionForExpense(Expense expense) {
         Transaction existingTransaction = transactionRepository
                 .findByReferenceTypeAndReferenceId("EXPENSE", expense.getId())
                 .orElseThrow(() -> new RuntimeException("No transaction found for expense"));
 
+        var oldAmount = existingTransaction.getAmount();
+        var oldCategory = existingTransaction.getCategory();
+        var oldDate = existingTransaction.getTransactionDate();
+
+        balanceService.seedIfAbsent(existingTransaction.getUser());
         existingTransaction.setCategory(expense.getCategory());
         existingTransaction.setAmount(expense.getAmount());
-        existingTransaction.setDescription("Expense: " + expense.getCategory());
-        existingTransaction.setTransactionDate(LocalDateTime.now());
+        if (expense.getStartDate() != null) {
+            existingTransaction.setTransactionDate(expense.getStartDate());
+        }
 
+        applyUpdate(existingTransaction, oldDate, oldCategory, oldAmount);
         transactionRepository.save(existingTransaction);
     }
 
-    private void adjustBalanceForUpdate(User user, BigDecimal oldAmount, BigDecimal newAmount) {
-        // First, reverse the old amount
-        balanceService.updateBalance(user, oldAmount, "INCOME"); // Reverse old expense
-        // Then apply the new amount
-        balanceService.updateBalance(user, newAmount, "EXPENSE"); // Add new expense
+    private void applyUpdate(Transaction transaction, LocalDateTime oldDate, String oldCategory, BigDecimal oldAmount) {
+        categoryService.assign(transaction);
+        // Apply only the net change between the old and new amount
+        BigDecimal delta = signedAmount(transaction.getType(), transaction.getAmount())
+                .subtract(signedAmount(transaction.getType(), oldAmount));
+        balanceService.applyDelta(transaction.getUser(), delta);
+        monthlyCategoryTotalService.recordUpdated(transaction, oldDate, oldCategory, oldAmount);
+        LocalDateTime newDate = transaction.getTransactionDate();
+        balanceSnapshotService.invalidateFrom(transaction.getUser(), oldDate.isBefore(newDate) ? oldDate : newDate);
     }
 
     @Transactional
@@ -58,73 +108,195 @@ public class TransactionService {
                 .findByReferenceTypeAndReferenceId("INCOME", income.getId())
                 .orElseThrow(() -> new RuntimeException("No transaction found for income"));
 
-        // Store the old amount for balance adjustment
+        // Store the old values for balance and rollup adjustment
         var oldAmount = existingTransaction.getAmount();
+        var oldCategory = existingTransaction.getCategory();
+        var oldDate = existingTransaction.getTransactionDate();
 
         // Update the transaction
+        balanceService.seedIfAbsent(existingTransaction.getUser());
         existingTransaction.setCategory(income.getType());
         existingTransaction.setAmount(income.getAmount());
-        existingTransaction.setDescription("Income: " + income.getType());
-        existingTransaction.setTransactionDate(LocalDateTime.now());
+        if (income.getStartDate() != null) {
+            existingTransaction.setTransactionDate(income.getStartDate());
+        }
+
+        // Adjust the balance and monthly totals
+        applyUpdate(existingTransaction, oldDate, oldCategory, oldAmount);
+        transactionRepository.save(existingTransaction);
+    }
 
-        // Adjust the balance
-        adjustBalanceForUpdate(income.getUser(), oldAmount, income.getAmount());
+    // Bulk variants of the update and delete paths: one mirror lookup, one balance update and one snapshot
+    // invalidation for the whole batch
+    @Transactional
+    public void updateTransactionsForExpenses(User user, List<Expense> expenses) {
+        Map<Long, Expense> byId = expenses.stream().collect(Collectors.toMap(Expense::getId, expense -> expense, (a, b) -> b));
+        updateMirrors(user, "EXPENSE", byId.keySet(), transaction -> {
+            Expense expense = byId.get(transaction.getReferenceId());
+            transaction.setCategory(expense.getCategory());
+            transaction.setAmount(expense.getAmount());
+            if (expense.getStartDate() != null) {
+                transaction.setTransactionDate(expense.getStartDate());
+            }
+        });
+    }
+
+    @Transactional
+    public void updateTransactionsForIncomes(User user, List<Income> incomes) {
+        Map<Long, Income> byId = incomes.stream().collect(Collectors.toMap(Income::getId, income -> income, (a, b) -> b));
+        updateMirrors(user, "INCOME", byId.keySet(), transaction -> {
+            Income income = byId.get(transaction.getReferenceId());
+            transaction.setCategory(income.getType());
+            transaction.setAmount(income.getAmount());
+            if (income.getStartDate() != null) {
+                transaction.setTransactionDate(income.getStartDate());
+            }
+        });
+    }
+
+    private void updateMirrors(User user, String referenceType, Collection<Long> referenceIds, Consumer<Transaction> update) {
+        List<Transaction> transactions = transactionRepository.findAllByReferenceTypeAndReferenceIdIn(referenceType, referenceIds);
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        balanceService.seedIfAbsent(user);
+        BigDecimal delta = BigDecimal.ZERO;
+        LocalDateTime earliest = null;
+        for (Transaction transaction : transactions) {
+            BigDecimal oldAmount = transaction.getAmount();
+            String oldCategory = transaction.getCategory();
+            LocalDateTime oldDate = transaction.getTransactionDate();
+
+            update.accept(transaction);
+            categoryService.assign(transaction);
+
+            delta = delta.add(signedAmount(transaction.getType(), transaction.getAmount()))
+                    .subtract(signedAmount(transaction.getType(), oldAmount));
+            monthlyCategoryTotalService.recordUpdated(transaction, oldDate, oldCategory, oldAmount);
+            LocalDateTime changedFrom = oldDate.isBefore(transaction.getTransactionDate()) ? oldDate : transaction.getTransactionDate();
+            earliest = earliest == null || changedFrom.isBefore(earliest) ? changedFrom : earliest;
+        }
+
+        balanceService.applyDelta(user, delta);
+        balanceSnapshotService.invalidateFrom(user, earliest);
+        transactionRepository.saveAll(transactions);
+    }
+
+    @Transactional
+    public void deleteTransactionsByReferences(User user, String referenceType, Collection<Long> referenceIds) {
+        List<Transaction> transactions = transactionRepository.findAllByReferenceTypeAndReferenceIdIn(referenceType, referenceIds);
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        BigDecimal delta = BigDecimal.ZERO;
+        LocalDateTime earliest = null;
+        for (Transaction transaction : transactions) {
+            delta = delta.subtract(signedAmount(transaction.getType(), transaction.getAmount()));
+            monthlyCategoryTotalService.recordDeleted(transaction);
+            LocalDateTime date = transaction.getTransactionDate();
+            earliest = earliest == null || date.isBefore(earliest) ? date : earliest;
+        }
+
+        balanceService.applyDelta(user, delta);
+        balanceSnapshotService.invalidateFrom(user, earliest);
+        transactionRepository.deleteAll(transactions);
     }
 
     @Transactional
     public void deleteTransactionsByReferenceTypeAndId(String referenceType, Long referenceId) {
-        transactionRepository.deleteByReferenceTypeAndReferenceId(referenceType, referenceId);
+        List<Transaction> transactions = transactionRepository.findAllByReferenceTypeAndReferenceId(referenceType, referenceId);
+        for (Transaction transaction : transactions) {
+            balanceService.applyDelta(transaction.getUser(), signedAmount(transaction.getType(), transaction.getAmount()).negate());
+            monthlyCategoryTotalService.recordDeleted(transaction);
+            balanceSnapshotService.invalidateFrom(transaction.getUser(), transaction.getTransactionDate());
+        }
+        transactionRepository.deleteAll(transactions);
     }
 
     public List<Transaction> getRecentTransactions(User user, int limit) {
-        LocalDateTime oneMonthAgo = LocalDateTime.now().minusMonths(1);
-        return transactionRepository.findByUserAndTransactionDateAfterOrderByTransactionDateDesc(
-                        user,
-                        oneMonthAgo
-                ).stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+        TransactionHistoryQuery query = new TransactionHistoryQuery();
+        query.setUser(user);
+        query.setFrom(LocalDateTime.now().minusMonths(1));
+        return transactionRepository.findHistoryPage(query, limit);
     }
 
     @Transactional(readOnly = true)
+    public TransactionHistoryPage getTransactionHistory(TransactionHistoryQuery query, String cursor, int limit) {
+        if (cursor != null && !cursor.isBlank()) {
+            decodeCursor(cursor, query);
+        }
+        if (query.getCategory() != null) {
+            CategoryService.Entry category = categoryService.find(query.getUser().getId(), query.getCategory());
+            query.setCategoryId(category != null ? category.id() : null);
+        }
+
+        // Fetch one extra row to know whether another page exists without a count query
+        List<Transaction> rows = transactionRepository.findHistoryPage(query, limit + 1);
+        if (rows.size() <= limit) {
+            return new TransactionHistoryPage(rows, null);
+        }
+
+        List<Transaction> page = rows.subList(0, limit);
+        return new TransactionHistoryPage(page, encodeCursor(page.get(limit - 1)));
+    }
+
+    private String encodeCursor(Transaction last) {
+        String raw = last.getTransactionDate() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void decodeCursor(String cursor, TransactionHistoryQuery query) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            query.setCursorDate(LocalDateTime.parse(raw.substring(0, separator)));
+            query.setCursorId(Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    @Transactional
     public BigDecimal calculateCurrentBalance(User user) {
-        List<Transaction> allTransactions = transactionRepository.findByUserOrderByTransactionDateAsc(user);
-
-        return allTransactions.stream()
-                .map(transaction -> {
-                    if ("EXPENSE".equals(transaction.getType())) {
-                        return transaction.getAmount().negate();
-                    }
-                    return transaction.getAmount();
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return balanceService.getOrCreateBalance(user).getCurrentBalance();
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal calculateLedgerBalance(User user) {
+        return transactionRepository.sumSignedAmountByUser(user);
     }
 
     public List<Map<String, Object>> getSpendingTrend(User user) {
-        LocalDateTime sixMonthsAgo = LocalDateTime.now().minusMonths(6);
-        List<Transaction> transactions = transactionRepository
-                .findByUserAndTypeAndTransactionDateAfterOrderByTransactionDateAsc(
-                        user,
-                        "EXPENSE",
-                        sixMonthsAgo
-                );
-
-        Map<YearMonth, BigDecimal> monthlyTotals = transactions.stream()
-                .collect(Collectors.groupingBy(
-                        t -> YearMonth.from(t.getTransactionDate()),
-                        Collectors.reducing(
-                                BigDecimal.ZERO,
-                                Transaction::getAmount,
-                                BigDecimal::add
-                        )
-                ));
-
-        return monthlyTotals.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .map(entry -> {
+        return getSpendingTrend(user, 6, Granularity.MONTH);
+    }
+
+    // Expense totals per period over the last N months; monthly buckets come straight from the rollup table
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getSpendingTrend(User user, int months, Granularity granularity) {
+        if (months < 1 || months > MAX_TREND_MONTHS) {
+            throw new IllegalArgumentException("months must be between 1 and " + MAX_TREND_MONTHS);
+        }
+        LocalDate from = granularity.truncate(LocalDate.now().minusMonths(months));
+
+        if (granularity == Granularity.MONTH) {
+            return monthlyCategoryTotalService.sumByMonth(user, "EXPENSE", YearMonth.from(from)).stream()
+                    .map(total -> {
+                        Map<String, Object> point = new HashMap<>();
+                        point.put("date", granularity.label(total.getMonth().atDay(1)));
+                        point.put("amount", total.getTotal());
+                        return point;
+                    })
+                    .collect(Collectors.toList());
+        }
+
+        return transactionRepository.sumAmountByPeriod(user.getId(), "EXPENSE", granularity.getSqlUnit(), from.atStartOfDay())
+                .stream()
+                .map(total -> {
                     Map<String, Object> point = new HashMap<>();
-                    point.put("date", entry.getKey().format(DateTimeFormatter.ofPattern("MMM yyyy")));
-                    point.put("amount", entry.getValue());
+                    point.put("date", granularity.label(LocalDate.parse(total.getPeriod())));
+                    point.put("amount", total.getTotal());
                     return point;
                 })
                 .collect(Collectors.toList());
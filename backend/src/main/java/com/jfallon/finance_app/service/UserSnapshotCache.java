@@ -0,0 +1,222 @@
+package com.jfallon.finance_app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Size-bounded, per-user cache of computed read models (dashboard sections, balance page data).
+// Entries are dropped by the owners' event listeners when the user's data changes; the TTL is only a backstop
+// for changes that publish no event. Least recently used entries are evicted once maxEntries is reached.
+@Service
+public class UserSnapshotCache {
+    private final int maxEntries;
+    private final long defaultTtlMillis;
+
+    // All guarded by "this"
+    private final LinkedHashMap<Key, Entry> entries;
+    private final Map<Long, Set<String>> namesByUser = new HashMap<>();
+    private final LinkedHashMap<Long, Long> generations;
+    private long estimatedBytes;
+
+    private final AtomicLong generationCounter = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserSnapshotCache(
+            @Value("${snapshots.cache.max-entries:5000}") int maxEntries,
+            @Value("${snapshots.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.defaultTtlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        // Only needs to outlive in-flight loads; a forgotten generation at worst lets one stale value in until the TTL
+        this.generations = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public <T> T get(Long userId, String name, Supplier<T> loader) {
+        return get(userId, name, defaultTtlMillis, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long userId, String name, long ttlMillis, Supplier<T> loader) {
+        Object cached = getIfPresent(userId, name);
+        if (cached != null) {
+            return (T) cached;
+        }
+        return load(userId, name, ttlMillis, loader);
+    }
+
+    // Computes and stores without a lookup, for callers that already missed through getIfPresent
+    public <T> T load(Long userId, String name, Supplier<T> loader) {
+        return load(userId, name, defaultTtlMillis, loader);
+    }
+
+    public <T> T load(Long userId, String name, long ttlMillis, Supplier<T> loader) {
+        long generation = generation(userId);
+        T value = loader.get();
+        if (value != null) {
+            put(userId, name, value, ttlMillis, generation);
+        }
+        return value;
+    }
+
+    // For callers that compute several entries from one read: take the generation before reading, then
+    // putIfCurrent each value, which is dropped if the user's data was invalidated in between
+    public synchronized long generation(Long userId) {
+        return generations.getOrDefault(userId, 0L);
+    }
+
+    public void putIfCurrent(Long userId, String name, Object value, long generation) {
+        if (value != null) {
+            put(userId, name, value, defaultTtlMillis, generation);
+        }
+    }
+
+    public Object getIfPresent(Long userId, String name) {
+        Key key = new Key(userId, name);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() < System.currentTimeMillis()) {
+                remove(key);
+                expirations.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value();
+        }
+    }
+
+    // Drops every entry of the user whose name starts with one of the prefixes, and any load already in flight
+    public synchronized void invalidate(Long userId, Collection<String> prefixes) {
+        generations.put(userId, generationCounter.incrementAndGet());
+        Set<String> names = namesByUser.get(userId);
+        if (names == null) {
+            return;
+        }
+        for (String name : new HashSet<>(names)) {
+            if (prefixes.stream().anyMatch(name::startsWith)) {
+                remove(new Key(userId, name));
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> metrics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("entries", entries.size());
+        metrics.put("maxEntries", maxEntries);
+        metrics.put("users", namesByUser.size());
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("hitRatio", hitCount + missCount == 0 ? 0d : (double) hitCount / (hitCount + missCount));
+        metrics.put("evictions", evictions.get());
+        metrics.put("expirations", expirations.get());
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("estimatedBytes", estimatedBytes);
+        return metrics;
+    }
+
+    private synchronized void put(Long userId, String name, Object value, long ttlMillis, long generation) {
+        // An invalidation since the load started means the value may predate the write; don't keep it
+        if (generations.getOrDefault(userId, 0L) != generation) {
+            return;
+        }
+        Key key = new Key(userId, name);
+        remove(key);
+        Entry entry = new Entry(value, System.currentTimeMillis() + ttlMillis, estimateBytes(value));
+        entries.put(key, entry);
+        namesByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(name);
+        estimatedBytes += entry.bytes();
+
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            eldest.remove();
+            forget(evicted.getKey(), evicted.getValue());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            forget(key, removed);
+        }
+    }
+
+    private void forget(Key key, Entry entry) {
+        estimatedBytes -= entry.bytes();
+        Set<String> names = namesByUser.get(key.userId());
+        if (names != null) {
+            names.remove(key.name());
+            if (names.isEmpty()) {
+                namesByUser.remove(key.userId());
+            }
+        }
+    }
+
+    // Rough shallow-plus-contents size of the map/list/scalar trees the read models are built from
+    static long estimateBytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String string) {
+            return 40 + 2L * string.length();
+        }
+        if (value instanceof BigDecimal) {
+            return 64;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Enum<?>) {
+            return 16;
+        }
+        if (value instanceof Temporal) {
+            return 48;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = 64;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += 32 + estimateBytes(entry.getKey()) + estimateBytes(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = 40;
+            for (Object element : collection) {
+                size += 8 + estimateBytes(element);
+            }
+            return size;
+        }
+        return 64;
+    }
+
+    private record Key(Long userId, String name) {
+    }
+
+    private record Entry(Object value, long expiresAt, long bytes) {
+    }
+}
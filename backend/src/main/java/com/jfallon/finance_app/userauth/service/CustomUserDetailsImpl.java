@@ -3,7 +3,9 @@ package com.jfallon.finance_app.userauth.service;
 import com.jfallon.finance_app.userauth.repository.UserRepository;
 import com.jfallon.finance_app.userauth.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -19,6 +21,10 @@ public class CustomUserDetailsImpl implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    // Accounts allowed to read operational endpoints such as /api/metrics
+    @Value("${security.admin-emails:}")
+    private List<String> adminEmails;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(username);
@@ -27,6 +33,9 @@ public class CustomUserDetailsImpl implements UserDetailsService {
             throw new UsernameNotFoundException("User not found with email: " + username);
         }
         List<GrantedAuthority> authorities = new ArrayList<>();
+        if (adminEmails.contains(user.getEmail())) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
 
         return new org.springframework.security.core.userdetails.User(user.getEmail(), user.getPassword(), authorities);
     }
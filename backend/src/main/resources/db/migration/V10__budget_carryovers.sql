@@ -0,0 +1,11 @@
+-- Envelope rollover: what each budgeted category carries into a month from the months before it.
+-- A chain starts at the category's first budgeted month with nothing carried in; rows after it are extended on read
+-- and shifted in place when an earlier month's budget or spend changes.
+CREATE TABLE IF NOT EXISTS budget_carryovers (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    category_id integer NOT NULL REFERENCES categories (id),
+    month_start date NOT NULL,
+    carried_in numeric(38, 2) NOT NULL,
+    CONSTRAINT uk_budget_carryovers UNIQUE (user_id, category_id, month_start)
+);
@@ -0,0 +1,30 @@
+-- A month whose rows already sit in transactions_default can't get a partition with CREATE ... PARTITION OF, since the
+-- default partition would then hold rows of the new range. Those rows are moved into a standalone table first, which
+-- is then attached. A row that reaches the default partition between the check and a plain create fails that create;
+-- the next maintenance run moves it.
+CREATE OR REPLACE FUNCTION create_transactions_partition(month_start date) RETURNS void AS $$
+DECLARE
+    partition_name text := format('transactions_y%sm%s', to_char(month_start, 'YYYY'), to_char(month_start, 'MM'));
+    month_end date := (month_start + interval '1 month')::date;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM transactions_default
+                   WHERE transaction_date >= month_start AND transaction_date < month_end) THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, month_start, month_end);
+        RETURN;
+    END IF;
+
+    -- Only this path blocks writes that route to the default partition, and only until the attach commits
+    LOCK TABLE transactions_default IN EXCLUSIVE MODE;
+
+    EXECUTE format('CREATE TABLE %I (LIKE transactions INCLUDING DEFAULTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM transactions_default WHERE transaction_date >= %L AND transaction_date < %L RETURNING *) ' ||
+                   'INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+    EXECUTE format('ALTER TABLE transactions ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, month_start, month_end);
+END;
+$$ LANGUAGE plpgsql;
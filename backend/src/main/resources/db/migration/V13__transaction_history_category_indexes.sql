@@ -0,0 +1,4 @@
+-- Category filters of the transaction history: expense rows match on the dictionary id, other rows on their own
+-- label, case-insensitively. Each side of that OR gets an index in the history's (date, id) order.
+CREATE INDEX IF NOT EXISTS idx_transactions_user_category_id_date_id ON transactions (user_id, category_id, transaction_date, id);
+CREATE INDEX IF NOT EXISTS idx_transactions_user_category_label_date_id ON transactions (user_id, lower(category), transaction_date, id);
@@ -0,0 +1,15 @@
+-- Budget thresholds already reported per (user, month, category), so a restart doesn't alert again; the rows also
+-- serve the recent-alerts list. A threshold's row is removed when spend drops back below it, letting it fire again.
+CREATE TABLE IF NOT EXISTS fired_budget_alerts (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    month_start date NOT NULL,
+    category varchar(255) NOT NULL,
+    threshold_percent integer NOT NULL,
+    budget numeric(38, 2) NOT NULL,
+    spent numeric(38, 2) NOT NULL,
+    triggered_at timestamp(6) NOT NULL,
+    CONSTRAINT uk_fired_budget_alerts UNIQUE (user_id, month_start, category, threshold_percent)
+);
+
+CREATE INDEX IF NOT EXISTS idx_fired_budget_alerts_user_triggered ON fired_budget_alerts (user_id, triggered_at);
@@ -0,0 +1,84 @@
+-- Baseline matching the schema previously generated by hibernate ddl-auto=update.
+-- Every statement is conditional so existing databases are adopted as-is.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS expense_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS income_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS portfolio_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS transactions_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id bigint NOT NULL PRIMARY KEY,
+    email varchar(255) NOT NULL UNIQUE,
+    password varchar(255) NOT NULL,
+    full_name varchar(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS expense (
+    id bigint NOT NULL PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    category varchar(255) NOT NULL,
+    amount numeric(38, 2) NOT NULL,
+    frequency varchar(255) NOT NULL,
+    start_date timestamp(6),
+    end_date timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS income (
+    id bigint NOT NULL PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    type varchar(255) NOT NULL,
+    amount numeric(38, 2) NOT NULL,
+    frequency varchar(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS portfolio (
+    id bigint NOT NULL PRIMARY KEY,
+    user_id bigint NOT NULL UNIQUE REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS portfolio_stocks (
+    portfolio_id bigint NOT NULL REFERENCES portfolio (id),
+    stock_name varchar(255) NOT NULL,
+    num_shares numeric(38, 2),
+    PRIMARY KEY (portfolio_id, stock_name)
+);
+
+CREATE TABLE IF NOT EXISTS budgets (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    category varchar(255),
+    amount numeric(38, 2),
+    budget_month bytea
+);
+
+CREATE TABLE IF NOT EXISTS balances (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL UNIQUE REFERENCES users (id),
+    current_balance numeric(38, 2) NOT NULL,
+    last_updated timestamp(6) NOT NULL,
+    version bigint
+);
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id bigint NOT NULL PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    type varchar(255) NOT NULL,
+    description varchar(255) NOT NULL,
+    amount numeric(38, 2) NOT NULL,
+    transaction_date timestamp(6) NOT NULL,
+    category varchar(255),
+    reference_type varchar(255),
+    reference_id bigint
+);
+
+CREATE TABLE IF NOT EXISTS monthly_category_totals (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    month_start date NOT NULL,
+    category varchar(255) NOT NULL,
+    type varchar(255) NOT NULL,
+    total numeric(38, 2) NOT NULL,
+    entry_count bigint NOT NULL,
+    CONSTRAINT uk_monthly_category_totals UNIQUE (user_id, month_start, category, type)
+);
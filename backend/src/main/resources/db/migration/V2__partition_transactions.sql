@@ -0,0 +1,72 @@
+-- Converts transactions to monthly range partitions on transaction_date.
+-- Partition names follow transactions_yYYYYmMM; rows outside every monthly range land in transactions_default.
+
+CREATE OR REPLACE FUNCTION create_transactions_partition(month_start date) RETURNS void AS $$
+DECLARE
+    partition_name text := format('transactions_y%sm%s', to_char(month_start, 'YYYY'), to_char(month_start, 'MM'));
+BEGIN
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, month_start, (month_start + interval '1 month')::date);
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    current_month date := date_trunc('month', now())::date;
+    first_month date;
+    last_month date;
+    m date;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid
+               WHERE c.relname = 'transactions') THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'transactions_pkey') THEN
+        ALTER TABLE transactions_unpartitioned RENAME CONSTRAINT transactions_pkey TO transactions_unpartitioned_pkey;
+    END IF;
+    ALTER INDEX IF EXISTS idx_transactions_user_date_id RENAME TO idx_transactions_unpartitioned_user_date_id;
+
+    -- The partition key has to be part of the primary key; ids stay unique through transactions_seq
+    CREATE TABLE transactions (
+        id bigint NOT NULL,
+        user_id bigint NOT NULL REFERENCES users (id),
+        type varchar(255) NOT NULL,
+        description varchar(255) NOT NULL,
+        amount numeric(38, 2) NOT NULL,
+        transaction_date timestamp(6) NOT NULL,
+        category varchar(255),
+        reference_type varchar(255),
+        reference_id bigint,
+        PRIMARY KEY (id, transaction_date)
+    ) PARTITION BY RANGE (transaction_date);
+
+    CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+    SELECT date_trunc('month', MIN(transaction_date))::date, date_trunc('month', MAX(transaction_date))::date
+    INTO first_month, last_month
+    FROM transactions_unpartitioned;
+
+    first_month := LEAST(COALESCE(first_month, current_month), current_month);
+    last_month := GREATEST(COALESCE(last_month, current_month), (current_month + interval '3 months')::date);
+
+    m := first_month;
+    WHILE m <= last_month LOOP
+        PERFORM create_transactions_partition(m);
+        m := (m + interval '1 month')::date;
+    END LOOP;
+
+    INSERT INTO transactions (id, user_id, type, description, amount, transaction_date, category, reference_type, reference_id)
+    SELECT id, user_id, type, description, amount, transaction_date, category, reference_type, reference_id
+    FROM transactions_unpartitioned;
+
+    DROP TABLE transactions_unpartitioned;
+END;
+$$;
+
+-- Indexes on the partitioned parent cascade to every current and future partition
+CREATE INDEX IF NOT EXISTS idx_transactions_user_date_id ON transactions (user_id, transaction_date, id);
+CREATE INDEX IF NOT EXISTS idx_transactions_reference ON transactions (reference_type, reference_id);
@@ -0,0 +1,10 @@
+CREATE INDEX IF NOT EXISTS idx_expense_user_start_date ON expense (user_id, start_date);
+CREATE INDEX IF NOT EXISTS idx_income_user ON income (user_id);
+CREATE INDEX IF NOT EXISTS idx_budgets_user ON budgets (user_id);
+
+-- One-time backfill of the rollup for databases that predate it
+INSERT INTO monthly_category_totals (user_id, month_start, category, type, total, entry_count)
+SELECT t.user_id, date_trunc('month', t.transaction_date)::date, COALESCE(t.category, ''), t.type, SUM(t.amount), COUNT(*)
+FROM transactions t
+WHERE NOT EXISTS (SELECT 1 FROM monthly_category_totals)
+GROUP BY 1, 2, 3, 4;
@@ -0,0 +1,2 @@
+-- Matches the allocationSize on Transaction so bulk imports hit the sequence once per 500 rows
+ALTER SEQUENCE transactions_seq INCREMENT BY 500;
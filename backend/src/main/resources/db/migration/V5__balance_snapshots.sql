@@ -0,0 +1,9 @@
+-- Balance of every transaction dated before snapshot_date, so a historical balance is a snapshot plus one bounded range scan
+CREATE TABLE IF NOT EXISTS balance_snapshots (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    snapshot_date date NOT NULL,
+    balance numeric(38, 2) NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    CONSTRAINT uk_balance_snapshots UNIQUE (user_id, snapshot_date)
+);
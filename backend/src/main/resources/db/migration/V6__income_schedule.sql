@@ -0,0 +1,13 @@
+-- Income gets the same schedule window as expense so recurring income can be projected forward
+ALTER TABLE income ADD COLUMN IF NOT EXISTS start_date timestamp(6);
+ALTER TABLE income ADD COLUMN IF NOT EXISTS end_date timestamp(6);
+
+UPDATE income i
+SET start_date = t.first_date
+FROM (
+    SELECT reference_id, MIN(transaction_date) AS first_date
+    FROM transactions
+    WHERE reference_type = 'INCOME'
+    GROUP BY reference_id
+) t
+WHERE i.id = t.reference_id AND i.start_date IS NULL;
@@ -0,0 +1,3 @@
+-- Budgets move from IDENTITY to a pooled sequence so Hibernate can batch their inserts
+CREATE SEQUENCE IF NOT EXISTS budgets_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('budgets_seq', COALESCE((SELECT MAX(id) FROM budgets), 0) + 100);
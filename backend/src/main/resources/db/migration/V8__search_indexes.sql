@@ -0,0 +1,4 @@
+-- Expense/income search filters on the owner plus a date range or a category set
+CREATE INDEX IF NOT EXISTS idx_expense_user_category_start_date ON expense (user_id, category, start_date);
+CREATE INDEX IF NOT EXISTS idx_income_user_start_date ON income (user_id, start_date);
+CREATE INDEX IF NOT EXISTS idx_income_user_type_start_date ON income (user_id, type, start_date);
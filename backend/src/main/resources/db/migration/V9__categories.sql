@@ -0,0 +1,60 @@
+-- Per-user category dictionary; names match case-insensitively after trimming. The backfill below keeps the
+-- lowest-sorting spelling of each name; names added later keep the spelling they were first stored with.
+-- Only expense categories belong in the dictionary: income and other non-expense ledger rows keep their label as text.
+CREATE TABLE IF NOT EXISTS categories (
+    id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    name varchar(255) NOT NULL
+);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_categories_user_name ON categories (user_id, lower(name));
+
+INSERT INTO categories (user_id, name)
+SELECT user_id, MIN(name)
+FROM (
+    SELECT user_id, btrim(category) AS name FROM expense WHERE btrim(category) <> ''
+    UNION ALL
+    SELECT user_id, btrim(category) FROM budgets WHERE btrim(category) <> ''
+    UNION ALL
+    SELECT user_id, btrim(category) FROM transactions WHERE type = 'EXPENSE' AND btrim(category) <> ''
+) names
+GROUP BY user_id, lower(name)
+ON CONFLICT DO NOTHING;
+
+ALTER TABLE expense ADD COLUMN IF NOT EXISTS category_id integer REFERENCES categories (id);
+ALTER TABLE budgets ADD COLUMN IF NOT EXISTS category_id integer REFERENCES categories (id);
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS category_id integer REFERENCES categories (id);
+
+UPDATE expense e SET category_id = c.id
+FROM categories c
+WHERE c.user_id = e.user_id AND lower(c.name) = lower(btrim(e.category));
+
+UPDATE budgets b SET category_id = c.id
+FROM categories c
+WHERE c.user_id = b.user_id AND lower(c.name) = lower(btrim(b.category));
+
+-- Mirrored ledger rows only repeated their category in the description; it is derived on read instead
+ALTER TABLE transactions ALTER COLUMN description DROP NOT NULL;
+UPDATE transactions SET description = NULL
+WHERE (reference_type = 'EXPENSE' AND description = 'Expense: ' || category)
+   OR (reference_type = 'INCOME' AND description = 'Income: ' || category);
+
+UPDATE transactions t SET category_id = c.id, category = NULL
+FROM categories c
+WHERE t.type = 'EXPENSE' AND c.user_id = t.user_id AND lower(c.name) = lower(btrim(t.category));
+
+UPDATE transactions SET category = btrim(category) WHERE type <> 'EXPENSE' AND category <> btrim(category);
+
+-- Rebuild the rollup so its buckets use the canonical spelling of each category
+DELETE FROM monthly_category_totals;
+INSERT INTO monthly_category_totals (user_id, month_start, category, type, total, entry_count)
+SELECT t.user_id, date_trunc('month', t.transaction_date)::date, COALESCE(c.name, t.category, ''), t.type, SUM(t.amount), COUNT(*)
+FROM transactions t
+LEFT JOIN categories c ON c.id = t.category_id
+GROUP BY 1, 2, 3, 4;
+
+DROP INDEX IF EXISTS idx_expense_user_category_start_date;
+ALTER TABLE expense DROP COLUMN IF EXISTS category;
+ALTER TABLE budgets DROP COLUMN IF EXISTS category;
+
+CREATE INDEX IF NOT EXISTS idx_expense_user_category_id_start_date ON expense (user_id, category_id, start_date);
+CREATE INDEX IF NOT EXISTS idx_budgets_user_category_id ON budgets (user_id, category_id);
@@ -0,0 +1,107 @@
+package com.jfallon.finance_app.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the real migrations against a local Postgres, e.g. the docker-compose one:
+// MIGRATION_TEST_DATABASE_URL=jdbc:postgresql://localhost:5432/<db> MIGRATION_TEST_DATABASE_USER=... MIGRATION_TEST_DATABASE_PASSWORD=...
+@EnabledIfEnvironmentVariable(named = "MIGRATION_TEST_DATABASE_URL", matches = ".+")
+class SchemaMigratorTests {
+
+	private final String schema = "migration_test_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+	private JdbcTemplate admin;
+	private DriverManagerDataSource dataSource;
+
+	@BeforeEach
+	void createSchema() {
+		admin = new JdbcTemplate(dataSource(new Properties()));
+		admin.execute("CREATE SCHEMA " + schema);
+
+		Properties properties = new Properties();
+		properties.setProperty("currentSchema", schema);
+		dataSource = dataSource(properties);
+	}
+
+	@AfterEach
+	void dropSchema() {
+		admin.execute("DROP SCHEMA " + schema + " CASCADE");
+	}
+
+	@Test
+	void migratesEmptyDatabaseAndIsIdempotent() {
+		SchemaMigrator migrator = new SchemaMigrator(dataSource, "classpath:db/migration");
+
+		assertThat(migrator.migrate()).isGreaterThan(0);
+		assertThat(migrator.migrate()).isZero();
+
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		assertThat(jdbc.queryForObject(
+				"SELECT count(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+						"JOIN pg_namespace n ON n.oid = c.relnamespace WHERE c.relname = 'transactions' AND n.nspname = ?",
+				Integer.class, schema)).isEqualTo(1);
+
+		List<String> indexes = jdbc.queryForList(
+				"SELECT indexname FROM pg_indexes WHERE schemaname = ?", String.class, schema);
+		assertThat(indexes).contains("idx_transactions_user_date_id", "idx_transactions_reference",
+				"idx_expense_user_start_date");
+	}
+
+	@Test
+	void convertsExistingTransactionsIntoPartitions() {
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("CREATE TABLE users (id bigint PRIMARY KEY, email varchar(255) NOT NULL UNIQUE, " +
+				"password varchar(255) NOT NULL, full_name varchar(255) NOT NULL)");
+		jdbc.execute("CREATE TABLE transactions (id bigint PRIMARY KEY, user_id bigint NOT NULL REFERENCES users (id), " +
+				"type varchar(255) NOT NULL, description varchar(255) NOT NULL, amount numeric(38, 2) NOT NULL, " +
+				"transaction_date timestamp(6) NOT NULL, category varchar(255), reference_type varchar(255), reference_id bigint)");
+		jdbc.update("INSERT INTO users VALUES (1, 'a@example.com', 'x', 'A')");
+		jdbc.update("INSERT INTO transactions VALUES (1, 1, 'EXPENSE', 'Expense: Food', 12.50, '2021-03-04 10:00', 'Food', 'EXPENSE', 7)");
+		jdbc.update("INSERT INTO transactions VALUES (2, 1, 'INCOME', 'Income: Salary', 100.00, '2022-07-01 09:00', 'Salary', 'INCOME', 8)");
+
+		new SchemaMigrator(dataSource, "classpath:db/migration").migrate();
+
+		assertThat(jdbc.queryForObject("SELECT count(*) FROM transactions", Integer.class)).isEqualTo(2);
+		assertThat(jdbc.queryForObject("SELECT count(*) FROM transactions_y2021m03", Integer.class)).isEqualTo(1);
+		assertThat(jdbc.queryForObject("SELECT count(*) FROM transactions_y2022m07", Integer.class)).isEqualTo(1);
+		assertThat(jdbc.queryForObject("SELECT count(*) FROM monthly_category_totals", Integer.class)).isEqualTo(2);
+		// Income types stay on the ledger row; only expense categories end up in the dictionary
+		assertThat(jdbc.queryForList("SELECT name FROM categories", String.class)).containsExactly("Food");
+		assertThat(jdbc.queryForObject("SELECT category FROM transactions WHERE id = 2", String.class)).isEqualTo("Salary");
+	}
+
+	@Test
+	void createsPartitionForMonthAlreadyInDefault() {
+		new SchemaMigrator(dataSource, "classpath:db/migration").migrate();
+
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.update("INSERT INTO users (id, email, password, full_name) VALUES (1, 'a@example.com', 'x', 'A')");
+		jdbc.update("INSERT INTO transactions (id, user_id, type, amount, transaction_date, category) " +
+				"VALUES (1, 1, 'INCOME', 100.00, '2099-01-15 09:00', 'Salary')");
+		assertThat(jdbc.queryForObject("SELECT count(*) FROM transactions_default", Integer.class)).isEqualTo(1);
+
+		jdbc.queryForObject("SELECT create_transactions_partition('2099-01-01')", Object.class);
+
+		assertThat(jdbc.queryForObject("SELECT count(*) FROM transactions_default", Integer.class)).isZero();
+		assertThat(jdbc.queryForObject("SELECT count(*) FROM transactions_y2099m01", Integer.class)).isEqualTo(1);
+		assertThat(jdbc.queryForObject("SELECT count(*) FROM transactions", Integer.class)).isEqualTo(1);
+	}
+
+	private DriverManagerDataSource dataSource(Properties properties) {
+		DriverManagerDataSource ds = new DriverManagerDataSource(
+				System.getenv("MIGRATION_TEST_DATABASE_URL"),
+				System.getenv("MIGRATION_TEST_DATABASE_USER"),
+				System.getenv("MIGRATION_TEST_DATABASE_PASSWORD"));
+		ds.setConnectionProperties(properties);
+		return ds;
+	}
+}
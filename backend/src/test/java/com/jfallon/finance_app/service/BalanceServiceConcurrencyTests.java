@@ -0,0 +1,159 @@
+package com.jfallon.finance_app.service;
+
+import com.jfallon.finance_app.model.Balance;
+import com.jfallon.finance_app.model.Income;
+import com.jfallon.finance_app.model.Transaction;
+import com.jfallon.finance_app.repository.BalanceRepository;
+import com.jfallon.finance_app.userauth.model.User;
+import com.jfallon.finance_app.userauth.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Hammers a single account through the configured datasource; needs a running Postgres:
+// BALANCE_STRESS_TEST=true ./mvnw test -Dtest=BalanceServiceConcurrencyTests
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "BALANCE_STRESS_TEST", matches = "true")
+class BalanceServiceConcurrencyTests {
+	private static final Logger logger = LoggerFactory.getLogger(BalanceServiceConcurrencyTests.class);
+
+	@Autowired
+	private BalanceService balanceService;
+
+	@Autowired
+	private BalanceRepository balanceRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private User user;
+
+	@BeforeEach
+	void createUser() {
+		user = new User();
+		user.setEmail("balance-stress-" + UUID.randomUUID() + "@example.com");
+		user.setPassword("x");
+		user.setFullName("Balance Stress");
+		user = userRepository.save(user);
+	}
+
+	@AfterEach
+	void deleteUser() {
+		jdbcTemplate.update("DELETE FROM transactions WHERE user_id = ?", user.getId());
+		jdbcTemplate.update("DELETE FROM monthly_category_totals WHERE user_id = ?", user.getId());
+		jdbcTemplate.update("DELETE FROM balance_snapshots WHERE user_id = ?", user.getId());
+		balanceRepository.findByUser(user).ifPresent(balanceRepository::delete);
+		userRepository.delete(user);
+	}
+
+	@Test
+	void concurrentDeltasAreNeverLost() throws Exception {
+		int writers = 64;
+		int deltasPerWriter = 250;
+
+		// Start every writer before the balance row exists so the first-insert race is covered as well
+		run(writers, deltasPerWriter, new BigDecimal("1.25"));
+
+		Balance balance = balanceRepository.findByUser(user).orElseThrow();
+		assertThat(balance.getCurrentBalance())
+				.isEqualByComparingTo(new BigDecimal("1.25").multiply(BigDecimal.valueOf((long) writers * deltasPerWriter)));
+		assertThat(balance.getVersion()).isEqualTo((long) writers * deltasPerWriter);
+	}
+
+	@Test
+	void zeroDeltaStillBumpsVersion() {
+		balanceService.applyDelta(user, BigDecimal.TEN);
+		long before = balanceRepository.findByUser(user).orElseThrow().getVersion();
+
+		balanceService.applyDelta(user, BigDecimal.ZERO);
+
+		assertThat(balanceRepository.findByUser(user).orElseThrow().getVersion()).isEqualTo(before + 1);
+	}
+
+	@Test
+	void editWithoutBalanceRowIsCountedOnce() {
+		Transaction transaction = new Transaction();
+		transaction.setUser(user);
+		transaction.setType("INCOME");
+		transaction.setAmount(BigDecimal.TEN);
+		transaction.setTransactionDate(LocalDateTime.now());
+		transaction.setReferenceType("INCOME");
+		transaction.setReferenceId(System.nanoTime());
+		transactionService.createTransaction(transaction);
+		// As for users whose ledger predates the materialized balance: the edit has to seed the row itself
+		balanceRepository.findByUser(user).ifPresent(balanceRepository::delete);
+
+		Income income = new Income();
+		income.setId(transaction.getReferenceId());
+		income.setAmount(new BigDecimal("25"));
+		transactionService.updateTransactionForIncome(income);
+
+		assertThat(balanceRepository.findByUser(user).orElseThrow().getCurrentBalance())
+				.isEqualByComparingTo(new BigDecimal("25"));
+	}
+
+	@Test
+	void throughputAtOneEightAndSixtyFourWriters() throws Exception {
+		int totalWrites = 6400;
+		balanceService.applyDelta(user, BigDecimal.ZERO);
+
+		for (int writers : new int[] {1, 8, 64}) {
+			long started = System.nanoTime();
+			run(writers, totalWrites / writers, BigDecimal.ONE);
+			double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+			logger.info("{} writers: {} writes in {} s ({} writes/s)",
+					writers, totalWrites, String.format("%.2f", seconds), String.format("%.0f", totalWrites / seconds));
+		}
+
+		assertThat(balanceRepository.findByUser(user).orElseThrow().getCurrentBalance())
+				.isEqualByComparingTo(BigDecimal.valueOf(3L * totalWrites));
+	}
+
+	private void run(int writers, int deltasPerWriter, BigDecimal delta) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(writers);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < writers; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int j = 0; j < deltasPerWriter; j++) {
+						balanceService.applyDelta(user, delta);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(5, TimeUnit.MINUTES);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
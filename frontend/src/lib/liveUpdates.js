@@ -0,0 +1,75 @@
+const STREAM_URL = 'http://localhost:5454/api/stream';
+const RETRY_MS = 3000;
+const MAX_RETRY_MS = 60000;
+
+// Trades the JWT for a one-time stream ticket, so the token itself never goes in a URL
+async function fetchTicket() {
+  const response = await fetch(`${STREAM_URL}/ticket`, {
+    method: 'POST',
+    headers: {
+      'Authorization': `Bearer ${localStorage.getItem('jwt')}`
+    }
+  });
+  if (!response.ok) {
+    throw new Error(`Stream ticket request failed: ${response.status}`);
+  }
+  return (await response.json()).ticket;
+}
+
+// Opens the server's push channel (/api/stream). Handlers are keyed by event name: "ledger", "data" or "budget".
+// A ticket only opens one connection, so after a drop this reconnects with a fresh ticket instead of letting the
+// browser retry the old URL; onReconnect runs after each reconnect so the caller can catch up on anything missed
+// in between. Returns a function that closes the connection.
+export function subscribeToLiveUpdates(handlers, onReconnect) {
+  let source = null;
+  let retryTimer = null;
+  let retryMs = RETRY_MS;
+  let connected = false;
+  let closed = false;
+
+  const scheduleRetry = () => {
+    if (!closed) {
+      retryTimer = setTimeout(connect, retryMs);
+      retryMs = Math.min(retryMs * 2, MAX_RETRY_MS);
+    }
+  };
+
+  const connect = async () => {
+    let ticket;
+    try {
+      ticket = await fetchTicket();
+    } catch (error) {
+      scheduleRetry();
+      return;
+    }
+    if (closed) {
+      return;
+    }
+
+    source = new EventSource(`${STREAM_URL}?ticket=${encodeURIComponent(ticket)}`);
+    source.onopen = () => {
+      retryMs = RETRY_MS;
+      if (connected && onReconnect) {
+        onReconnect();
+      }
+      connected = true;
+    };
+    source.onerror = () => {
+      source.close();
+      scheduleRetry();
+    };
+    Object.entries(handlers).forEach(([name, handler]) => {
+      source.addEventListener(name, (event) => handler(JSON.parse(event.data)));
+    });
+  };
+
+  connect();
+
+  return () => {
+    closed = true;
+    clearTimeout(retryTimer);
+    if (source) {
+      source.close();
+    }
+  };
+}
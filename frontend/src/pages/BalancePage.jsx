@@ -3,27 +3,60 @@ import { Card, CardHeader, CardTitle, CardContent } from "@/components/ui/card";
 import { Alert, AlertDescription } from "@/components/ui/alert";
 import { Table, TableBody, TableCell, TableHead, TableHeader, TableRow } from "@/components/ui/table";
 import { Wallet, ArrowUpRight, ArrowDownRight } from 'lucide-react';
+import { LineChart, Line, XAxis, YAxis, CartesianGrid, Tooltip, ResponsiveContainer } from 'recharts';
+import { subscribeToLiveUpdates } from '@/lib/liveUpdates';
 
 
 export const BalancePage = () => {
   const [balanceData, setBalanceData] = useState({
     currentBalance: 0,
     lastUpdated: null,
-    recentTransactions: []
+    recentTransactions: [],
+    series: []
   });
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
 
   useEffect(() => {
     fetchBalanceData();
-    // Refresh balance data every minute
-    const interval = setInterval(fetchBalanceData, 60000);
-    return () => clearInterval(interval);
+    // The server pushes balance and recent transactions when the ledger changes; only the chart is refetched
+    return subscribeToLiveUpdates({
+      ledger: (update) => {
+        setBalanceData(prev => ({
+          ...prev,
+          currentBalance: update.balance.currentBalance,
+          lastUpdated: update.balance.lastUpdated,
+          recentTransactions: update.transactions
+        }));
+        fetchSeries();
+      },
+      data: (update) => {
+        if (update.kind === 'BALANCE') {
+          fetchBalanceData();
+        }
+      }
+    }, fetchBalanceData);
   }, []);
 
+  const fetchSeries = async () => {
+    try {
+      const response = await fetch('http://localhost:5454/api/balance/history/series?granularity=day', {
+        headers: {
+          'Authorization': `Bearer ${localStorage.getItem('jwt')}`
+        }
+      });
+      if (response.ok) {
+        const series = await response.json();
+        setBalanceData(prev => ({ ...prev, series }));
+      }
+    } catch (err) {
+      console.error('Balance series fetch error:', err);
+    }
+  };
+
   const fetchBalanceData = async () => {
     try {
-      const [balanceResponse, transactionsResponse] = await Promise.all([
+      const [balanceResponse, transactionsResponse, seriesResponse] = await Promise.all([
         fetch('http://localhost:5454/api/balance', {
           headers: {
             'Authorization': `Bearer ${localStorage.getItem('jwt')}`
@@ -33,20 +66,27 @@ export const BalancePage = () => {
           headers: {
             'Authorization': `Bearer ${localStorage.getItem('jwt')}`
           }
+        }),
+        fetch('http://localhost:5454/api/balance/history/series?granularity=day', {
+          headers: {
+            'Authorization': `Bearer ${localStorage.getItem('jwt')}`
+          }
         })
       ]);
   
-      if (!balanceResponse.ok || !transactionsResponse.ok) {
+      if (!balanceResponse.ok || !transactionsResponse.ok || !seriesResponse.ok) {
         throw new Error('Failed to fetch balance data');
       }
   
       const balance = await balanceResponse.json();
       const transactions = await transactionsResponse.json();
+      const series = await seriesResponse.json();
   
       setBalanceData({
         currentBalance: balance.currentBalance,
         lastUpdated: balance.lastUpdated,
-        recentTransactions: transactions
+        recentTransactions: transactions,
+        series: series
       });
     } catch (err) {
       setError(err.message);
@@ -106,6 +146,32 @@ export const BalancePage = () => {
         </CardContent>
       </Card>
 
+      {/* Running Balance */}
+      <Card className="mb-8">
+        <CardHeader>
+          <CardTitle className="text-xl font-semibold">Balance History</CardTitle>
+        </CardHeader>
+        <CardContent>
+          <div style={{ width: '100%', height: 300 }}>
+            <ResponsiveContainer>
+              <LineChart data={balanceData.series}>
+                <CartesianGrid strokeDasharray="3 3" />
+                <XAxis dataKey="label" minTickGap={24} />
+                <YAxis />
+                <Tooltip />
+                <Line
+                  type="monotone"
+                  dataKey="balance"
+                  stroke="#8884d8"
+                  strokeWidth={2}
+                  dot={false}
+                />
+              </LineChart>
+            </ResponsiveContainer>
+          </div>
+        </CardContent>
+      </Card>
+
       {/* Recent Transactions */}
       <div className="mt-8">
         <h2 className="text-xl font-semibold mb-4">Recent Transactions</h2>
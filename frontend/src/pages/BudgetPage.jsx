@@ -10,6 +10,7 @@ import { BudgetFormModal } from '@/components/modal/BudgetFormModal';
 export const BudgetPage = () => {
   const [budgets, setBudgets] = useState([]);
   const [summary, setSummary] = useState(null);
+  const [rollover, setRollover] = useState({});
   const [currentMonth, setCurrentMonth] = useState(
     new Date().toISOString().slice(0, 7)
   );
@@ -23,20 +24,23 @@ export const BudgetPage = () => {
   const fetchBudgetData = async () => {
     try {
       setLoading(true);
-      const [budgetsResponse, summaryResponse] = await Promise.all([
+      const [budgetsResponse, summaryResponse, rolloverResponse] = await Promise.all([
         fetch(`http://localhost:5454/api/budgets/month/${currentMonth}`),
-        fetch(`http://localhost:5454/api/budgets/summary/${currentMonth}`)
+        fetch(`http://localhost:5454/api/budgets/summary/${currentMonth}`),
+        fetch(`http://localhost:5454/api/budgets/rollover/${currentMonth}`)
       ]);
 
-      if (!budgetsResponse.ok || !summaryResponse.ok) {
+      if (!budgetsResponse.ok || !summaryResponse.ok || !rolloverResponse.ok) {
         throw new Error('Failed to fetch budget data');
       }
 
       const budgetsData = await budgetsResponse.json();
       const summaryData = await summaryResponse.json();
+      const rolloverData = await rolloverResponse.json();
 
       setBudgets(budgetsData);
       setSummary(summaryData);
+      setRollover(Object.fromEntries(rolloverData.categories.map((line) => [line.category, line])));
     } catch (err) {
       setError(err.message);
     } finally {
@@ -118,6 +122,11 @@ export const BudgetPage = () => {
               <span className="text-sm text-muted-foreground">
                 ${summary?.spent[budget.category] || 0} / ${budget.amount}
               </span>
+              {rollover[budget.category] && (
+                <span className="text-sm text-muted-foreground">
+                  Carried in ${rollover[budget.category].carriedIn} &middot; Available ${rollover[budget.category].available}
+                </span>
+              )}
             </CardHeader>
             <CardContent>
               <Progress 
@@ -1,4 +1,4 @@
-import { useState, useEffect } from 'react';
+import { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { 
   LineChart, Line, XAxis, YAxis, CartesianGrid, Tooltip, ResponsiveContainer,
@@ -21,8 +21,26 @@ import {
   CardTitle,
 } from "@/components/ui/card";
 import {Alert, AlertDescription} from "@/components/ui/alert"
+import { subscribeToLiveUpdates } from '@/lib/liveUpdates';
 import { AuthenticatedLayout } from '@/components/layout/AuthLayout';
 
+const API_URL = 'http://localhost:5454/api/dashboard';
+// Pushes for one section that arrive within this window (e.g. a bulk edit) share a single refetch
+const SECTION_REFRESH_MS = 1000;
+// Quotes move without any write, so the portfolio is the one section nothing pushes
+const POLL_MS = 300000;
+
+const fetchSection = async (path) => {
+  const response = await fetch(`${API_URL}${path}`, {
+    headers: {
+      'Authorization': `Bearer ${localStorage.getItem('jwt')}`
+    }
+  });
+  if (!response.ok) {
+    throw new Error(`Failed to fetch dashboard ${path}`);
+  }
+  return response.json();
+};
 
 const DashboardCard = ({ title, value, subValue, icon: Icon, trend, onClick }) => (
   <Card className="cursor-pointer hover:shadow-lg transition-shadow" onClick={onClick}>
@@ -169,44 +187,18 @@ export const Dashboard = () => {
   });
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  const [budgetAlert, setBudgetAlert] = useState(null);
+  const refreshTimers = useRef({});
 
   const fetchDashboardData = async () => {
     try {
-      const [balanceRes, expensesRes, incomeRes, portfolioRes, transactionsRes] = await Promise.all([
-        fetch('http://localhost:5454/api/balance', {
-          headers: {
-            'Authorization': `Bearer ${localStorage.getItem('jwt')}`
-          }
-        }),
-        fetch('http://localhost:5454/api/dashboard/expenses', {
-          headers: {
-            'Authorization': `Bearer ${localStorage.getItem('jwt')}`
-          }
-        }),
-        fetch('http://localhost:5454/api/dashboard/income', {
-          headers: {
-            'Authorization': `Bearer ${localStorage.getItem('jwt')}`
-          }
-        }),
-        fetch('http://localhost:5454/api/portfolio', {
-          headers: {
-            'Authorization': `Bearer ${localStorage.getItem('jwt')}`
-          }
-        }),
-        fetch('http://localhost:5454/api/dashboard/transactions', {
-          headers: {
-            'Authorization': `Bearer ${localStorage.getItem('jwt')}`
-          }
-        })
-      ]);
-
-      const [balance, expenses, income, portfolio, transactions] = await Promise.all([
-        balanceRes.json(),
-        expensesRes.json(),
-        incomeRes.json(),
-        portfolioRes.json(),
-        transactionsRes.json()
-      ]);
+      // One round trip; sections the server couldn't finish in time come back empty and keep their defaults
+      const summary = await fetchSection('/summary');
+      const balance = summary.balance || {};
+      const expenses = summary.expenses || {};
+      const income = summary.income || {};
+      const portfolio = summary.portfolio || {};
+      const transactions = summary.transactions || {};
 
       setDashboardData({
         totalBalance: balance.total,
@@ -226,11 +218,66 @@ export const Dashboard = () => {
     }
   };
 
+  const sectionLoaders = {
+    expenses: async () => {
+      const expenses = await fetchSection('/expenses');
+      setDashboardData(prev => ({
+        ...prev,
+        monthlyExpenses: expenses.monthly,
+        expenseBreakdown: expenses.breakdown,
+        spendingTrend: expenses.trend
+      }));
+    },
+    income: async () => {
+      const income = await fetchSection('/income');
+      setDashboardData(prev => ({ ...prev, monthlyIncome: income.monthly }));
+    },
+    summary: fetchDashboardData
+  };
+
+  // A failed section refetch keeps what is on screen; the next push or the poll tries again
+  const refreshSection = (section) => {
+    clearTimeout(refreshTimers.current[section]);
+    refreshTimers.current[section] = setTimeout(() => {
+      delete refreshTimers.current[section];
+      sectionLoaders[section]().catch(err => console.error(`Dashboard ${section} refresh error:`, err));
+    }, SECTION_REFRESH_MS);
+  };
+
   useEffect(() => {
     fetchDashboardData();
-    // Refresh dashboard data every 5 minutes
-    const interval = setInterval(fetchDashboardData, 300000);
-    return () => clearInterval(interval);
+    // Answered with 304 when nothing changed, and skipped while the tab is hidden
+    const interval = setInterval(() => {
+      if (!document.hidden) {
+        fetchDashboardData();
+      }
+    }, POLL_MS);
+    const unsubscribe = subscribeToLiveUpdates({
+      // The push carries the balance and recent items; expense totals and the trend are derived server-side
+      ledger: (update) => {
+        setDashboardData(prev => ({
+          ...prev,
+          totalBalance: update.balance.total,
+          recentTransactions: update.recent
+        }));
+        refreshSection('expenses');
+      },
+      data: ({ kind }) => {
+        if (kind === 'EXPENSE') {
+          refreshSection('expenses');
+        } else if (kind === 'INCOME') {
+          refreshSection('income');
+        } else {
+          refreshSection('summary');
+        }
+      },
+      budget: (alert) => setBudgetAlert(alert)
+    }, () => refreshSection('summary'));
+    return () => {
+      clearInterval(interval);
+      Object.values(refreshTimers.current).forEach(clearTimeout);
+      unsubscribe();
+    };
   }, []);
 
   if (loading) {
@@ -279,6 +326,14 @@ export const Dashboard = () => {
 
       <div style={styles.container} className="container mx-auto p-6">
       <h2 className="text-3xl font-bold tracking-tight mb-6">Dashboard</h2>
+
+        {budgetAlert && (
+          <Alert className="mb-4">
+            <AlertDescription>
+              {`You've used ${budgetAlert.thresholdPercent}% of your ${budgetAlert.category} budget for ${budgetAlert.month}.`}
+            </AlertDescription>
+          </Alert>
+        )}
       
         {/* Top row: Summary Cards */}
         <div className="grid grid-cols-1 md:grid-cols-4 gap-4 mb-4" style = {styles.topRow}>
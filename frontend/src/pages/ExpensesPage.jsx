@@ -19,21 +19,27 @@ export const ExpensesPage = () => {
     const [isEditDialogOpen, setIsEditDialogOpen] = useState(false);
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState(null);
+    const [page, setPage] = useState(0);
+    const [totalPages, setTotalPages] = useState(0);
+    const [totalElements, setTotalElements] = useState(0);
+    const PAGE_SIZE = 50;
   
     useEffect(() => {
       fetchExpenses();
-    }, []);
+    }, [page]);
   
     const fetchExpenses = async () => {
       try {
-        const response = await fetch('http://localhost:5454/api/expenses', {
+        const response = await fetch(`http://localhost:5454/api/expenses/search?page=${page}&size=${PAGE_SIZE}&sort=date,desc`, {
           headers: {
             'Authorization': `Bearer ${localStorage.getItem('jwt')}`
           }
         });
         if (!response.ok) throw new Error('Failed to fetch expenses');
         const data = await response.json();
-        setExpenses(data);
+        setExpenses(data.content);
+        setTotalPages(data.totalPages);
+        setTotalElements(data.totalElements);
       } catch (err) {
         setError(err.message);
       } finally {
@@ -169,6 +175,7 @@ export const ExpensesPage = () => {
                 >
                   <option value="ONE_TIME">One Time</option>
                   <option value="WEEKLY">Weekly</option>
+                  <option value="BIWEEKLY">Biweekly</option>
                   <option value="MONTHLY">Monthly</option>
                   <option value="YEARLY">Yearly</option>
                 </select>
@@ -215,6 +222,7 @@ export const ExpensesPage = () => {
                 >
                   <option value="ONE_TIME">One Time</option>
                   <option value="WEEKLY">Weekly</option>
+                  <option value="BIWEEKLY">Biweekly</option>
                   <option value="MONTHLY">Monthly</option>
                   <option value="YEARLY">Yearly</option>
                 </select>
@@ -261,6 +269,30 @@ export const ExpensesPage = () => {
             ))}
           </TableBody>
         </Table>
+
+        {totalPages > 1 && (
+          <div className="flex justify-between items-center mt-4">
+            <span className="text-sm text-gray-500">
+              Page {page + 1} of {totalPages} ({totalElements} expenses)
+            </span>
+            <div className="flex gap-2">
+              <button
+                onClick={() => setPage(page - 1)}
+                disabled={page === 0}
+                className="px-3 py-1 border rounded disabled:opacity-50"
+              >
+                Previous
+              </button>
+              <button
+                onClick={() => setPage(page + 1)}
+                disabled={page + 1 >= totalPages}
+                className="px-3 py-1 border rounded disabled:opacity-50"
+              >
+                Next
+              </button>
+            </div>
+          </div>
+        )}
       </div>
     );
   };
\ No newline at end of file
@@ -163,6 +163,7 @@ export const IncomePage = () => {
                             >
                                 <option value="ONE_TIME">One Time</option>
                                 <option value="WEEKLY">Weekly</option>
+                                <option value="BIWEEKLY">Biweekly</option>
                                 <option value="MONTHLY">Monthly</option>
                                 <option value="YEARLY">Yearly</option>
                             </select>
@@ -209,6 +210,7 @@ export const IncomePage = () => {
                             >
                                 <option value="ONE_TIME">One Time</option>
                                 <option value="WEEKLY">Weekly</option>
+                                <option value="BIWEEKLY">Biweekly</option>
                                 <option value="MONTHLY">Monthly</option>
                                 <option value="YEARLY">Yearly</option>
                             </select>